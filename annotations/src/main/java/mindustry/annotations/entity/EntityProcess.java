@@ -600,7 +600,7 @@ public class EntityProcess extends BaseProcessor{
                 //add create() method
                 builder.addMethod(MethodSpec.methodBuilder("create").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                 .returns(tname(packageName + "." + name))
-                .addStatement(ann.pooled() ? "return Pools.obtain($L.class, " +name +"::new)" : "return new $L()", name).build());
+                .addStatement(ann.pooled() ? "return mindustry.entities.EntityPools.obtain($L.class, " +name +"::new)" : "return new $L()", name).build());
 
                 skipDeprecated(builder);
 
@@ -668,7 +668,7 @@ public class EntityProcess extends BaseProcessor{
 
             //free everything pooled at the start of each updaet
             groupUpdate
-                .addStatement("for($T p : freeQueue) $T.free(p)", Poolable.class, Pools.class)
+                .addStatement("for($T p : freeQueue) mindustry.entities.EntityPools.free(p)", Poolable.class)
                 .addStatement("freeQueue.clear()");
 
             //method resize
@@ -233,6 +233,7 @@ public class Vars implements Loadable{
     public static ContentLoader content;
     public static GameState state;
     public static EntityCollisions collisions;
+    public static BuildingUpdater buildingUpdater;
     public static Waves waves;
     public static Platform platform = new Platform(){};
     public static Mods mods;
@@ -312,6 +313,7 @@ public class Vars implements Loadable{
         content = new ContentLoader();
         waves = new Waves();
         collisions = new EntityCollisions();
+        buildingUpdater = new BuildingUpdater();
         world = new World();
         universe = new Universe();
         becontrol = new BeControl();
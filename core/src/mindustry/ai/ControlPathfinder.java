@@ -1,13 +1,16 @@
 package mindustry.ai;
 
 import arc.*;
+import arc.func.*;
 import arc.graphics.*;
 import arc.graphics.g2d.*;
 import arc.math.*;
 import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
+import mindustry.ai.types.*;
 import mindustry.annotations.Annotations.*;
+import mindustry.async.*;
 import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.game.EventType.*;
@@ -16,6 +19,8 @@ import mindustry.gen.*;
 import mindustry.graphics.*;
 import mindustry.world.*;
 
+import java.util.concurrent.*;
+
 import static mindustry.Vars.*;
 import static mindustry.ai.Pathfinder.*;
 
@@ -81,6 +86,8 @@ public class ControlPathfinder implements Runnable{
     private static final int updateStepInterval = 200;
     private static final int updateFPS = 30;
     private static final int updateInterval = 1000 / updateFPS, invalidateCheckInterval = 1000;
+    //max amount of path requests initialized per update; priority requests are always processed first
+    private static final int maxRequestBatch = 512;
 
     static final int clusterSize = 12;
 
@@ -111,8 +118,6 @@ public class ControlPathfinder implements Runnable{
 
     int cwidth, cheight;
 
-    //temporarily used for resolving connections for intra-edges
-    IntSet usedEdges = new IntSet();
     //tasks to run on pathfinding thread
     TaskQueue queue = new TaskQueue();
 
@@ -120,6 +125,8 @@ public class ControlPathfinder implements Runnable{
     ObjectMap<Unit, PathRequest> unitRequests = new ObjectMap<>();
 
     Seq<PathRequest> threadPathRequests = new Seq<>(false);
+    //PATHFINDING THREAD - requests that need their cluster path (re)calculated, processed in batches from the front; must stay ordered
+    Seq<PathRequest> pendingRequests = new Seq<>();
 
     //TODO: very dangerous usage;
     //TODO - it is accessed from the main thread
@@ -129,9 +136,18 @@ public class ControlPathfinder implements Runnable{
     //MAIN THREAD ONLY
     Seq<FieldCache> fieldList = new Seq<>(false);
 
-    //these are for inner edge A* (temporary!)
-    IntFloatMap innerCosts = new IntFloatMap();
-    PathfindQueue innerFrontier = new PathfindQueue();
+    //temporary data for inner edge A*, separate for each worker
+    final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>(){
+        @Override
+        protected Scratch initialValue(){
+            return new Scratch();
+        }
+    };
+
+    //PATHFINDING THREAD - requests of the current batch, sharded by team and path cost
+    IntMap<PathShard> shards = new IntMap<>();
+    Seq<PathShard> activeShards = new Seq<>(false, 16, PathShard.class);
+    Seq<FieldCache> activeFields = new Seq<>(false, 16, FieldCache.class);
 
     //ONLY modify on pathfinding thread.
     IntSet clustersToUpdate = new IntSet();
@@ -142,11 +158,17 @@ public class ControlPathfinder implements Runnable{
 
     /** Current pathfinding thread */
     @Nullable Thread thread;
+    /** Extra workers used by the pathfinding thread. Null if there is only one core to work with. */
+    @Nullable ExecutorService workers;
+    /** Amount of threads (including the pathfinding thread) that process requests and flow fields. */
+    final int workerThreads = Mathf.clamp(OS.cores - 1, 1, 4);
 
     //path requests are per-unit
     static class PathRequest{
         final Unit unit;
         final int destination, team, costId;
+        //whether this request comes from a player order; these are processed before any other requests
+        final boolean priority;
         //resulting path of nodes
         final IntSeq resultPath = new IntSeq();
 
@@ -171,11 +193,16 @@ public class ControlPathfinder implements Runnable{
         int lastTile;
         @Nullable Tile lastTargetTile;
 
-        PathRequest(Unit unit, int team, int costId, int destination){
+        //pathfinding thread only: state of a batched recalculation
+        boolean pending, pathFound;
+        int startX, startY, startNode;
+
+        PathRequest(Unit unit, int team, int costId, int destination, boolean priority){
             this.unit = unit;
             this.costId = costId;
             this.team = team;
             this.destination = destination;
+            this.priority = priority;
         }
     }
 
@@ -210,6 +237,35 @@ public class ControlPathfinder implements Runnable{
         LongSeq[][] portalConnections = new LongSeq[4][];
     }
 
+    /** Path requests of a single team and path cost. Clusters are separate for each team and cost, so shards can be processed concurrently. */
+    static class PathShard{
+        final int team, costId;
+        final Seq<PathRequest> requests = new Seq<>(false);
+        //destination tile -> closest node; shared by all requests to the same destination
+        final IntIntMap destNodes = new IntIntMap();
+        //start node + end node -> request that already has this path
+        final LongMap<PathRequest> solved = new LongMap<>();
+
+        PathShard(int team, int costId){
+            this.team = team;
+            this.costId = costId;
+        }
+
+        void clear(){
+            requests.clear();
+            destNodes.clear();
+            solved.clear();
+        }
+    }
+
+    static class Scratch{
+        //used for resolving connections for intra-edges
+        final IntSet usedEdges = new IntSet();
+        //used for inner edge A*
+        final IntFloatMap innerCosts = new IntFloatMap();
+        final PathfindQueue innerFrontier = new PathfindQueue();
+    }
+
     public ControlPathfinder(){
 
         Events.on(ResetEvent.class, event -> stop());
@@ -221,6 +277,7 @@ public class ControlPathfinder implements Runnable{
             unitRequests = new ObjectMap<>();
             fields = new LongMap<>();
             fieldList = new Seq<>(false);
+            pendingRequests = new Seq<>();
 
             clusters = new Cluster[256][][];
             cwidth = Mathf.ceil((float)world.width() / clusterSize);
@@ -383,6 +440,15 @@ public class ControlPathfinder implements Runnable{
         stop();
         if(net.client()) return;
 
+        if(workerThreads > 1){
+            workers = Executors.newFixedThreadPool(workerThreads - 1, r -> {
+                Thread worker = new Thread(r, "Control Pathfinder Worker");
+                worker.setPriority(Thread.MIN_PRIORITY);
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
+
         thread = new Thread(this, "Control Pathfinder");
         thread.setPriority(Thread.MIN_PRIORITY);
         thread.setDaemon(true);
@@ -395,6 +461,10 @@ public class ControlPathfinder implements Runnable{
             thread.interrupt();
             thread = null;
         }
+        if(workers != null){
+            workers.shutdownNow();
+            workers = null;
+        }
         queue.clear();
     }
 
@@ -534,7 +604,8 @@ public class ControlPathfinder implements Runnable{
 
     void updateInnerEdges(int team, PathCost cost, int cx, int cy, Cluster cluster){
         int minX = cx * clusterSize, minY = cy * clusterSize, maxX = Math.min(minX + clusterSize - 1, wwidth - 1), maxY = Math.min(minY + clusterSize - 1, wheight - 1);
-        
+        IntSet usedEdges = scratch.get().usedEdges;
+
         usedEdges.clear();
 
         //clear all connections, since portals changed, they need to be recomputed.
@@ -623,8 +694,9 @@ public class ControlPathfinder implements Runnable{
 
     /** @return -1 if no path was found */
     float innerAstar(int team, PathCost cost, int minX, int minY, int maxX, int maxY, int startPos, int goalPos, int goalX1, int goalY1, int goalX2, int goalY2){
-        var frontier = innerFrontier;
-        var costs = innerCosts;
+        Scratch data = scratch.get();
+        var frontier = data.innerFrontier;
+        var costs = data.innerCosts;
 
         frontier.clear();
         costs.clear();
@@ -1001,13 +1073,21 @@ public class ControlPathfinder implements Runnable{
         }
     }
 
-    private void initializePathRequest(PathRequest request, int team, int costId, int unitX, int unitY, int goalX, int goalY){
-        PathCost pcost = idToCost(costId);
+    /** Finds the cluster path of a request. Called on any worker; only touches clusters of the request's team and path cost. */
+    private void findPath(PathShard shard, PathRequest request){
+        int team = request.team, costId = request.costId, goalPos = request.destination;
 
-        int goalPos = (goalX + goalY * wwidth);
+        request.pathFound = false;
+        request.startNode = findClosestNode(team, costId, request.startX, request.startY);
 
-        int node = findClosestNode(team, costId, unitX, unitY);
-        int dest = findClosestNode(team, costId, goalX, goalY);
+        int dest;
+        //requests to the same destination share the closest node
+        if(shard.destNodes.containsKey(goalPos)){
+            dest = shard.destNodes.get(goalPos);
+        }else{
+            dest = findClosestNode(team, costId, goalPos % wwidth, goalPos / wwidth);
+            shard.destNodes.put(goalPos, dest);
+        }
 
         if(dest == Integer.MAX_VALUE){
             request.notFound = true;
@@ -1015,21 +1095,44 @@ public class ControlPathfinder implements Runnable{
             return;
         }
 
-        var nodePath = clusterAstar(request, costId, node, dest);
+        //requests that start at the same node share the resulting path
+        long pathKey = Pack.longInt(request.startNode, dest);
+        PathRequest solved = shard.solved.get(pathKey);
+
+        if(solved != null){
+            request.resultPath.clear();
+            request.resultPath.addAll(solved.resultPath);
+            request.costs = null;
+            request.cameFrom = null;
+            request.frontier = null;
+            request.pathFound = true;
+            return;
+        }
 
         //no result found, bail out.
-        if(nodePath == null){
+        if(clusterAstar(request, costId, request.startNode, dest) == null){
             request.notFound = true;
             return;
         }
 
+        request.pathFound = true;
+        shard.solved.put(pathKey, request);
+    }
+
+    /** Creates or extends the flow field of a request once its path is found. Pathfinding thread only. */
+    private void applyPath(PathRequest request){
+        if(!request.pathFound) return;
+
+        int costId = request.costId, goalPos = request.destination;
+        IntSeq nodePath = request.resultPath;
+
         FieldCache cache = fields.get(Pack.longInt(goalPos, costId));
         //if true, extra values are added on the sides of existing field cells that face new cells.
         boolean addingFrontier = true;
 
         //create the cache if it doesn't exist, and initialize it
         if(cache == null){
-            cache = new FieldCache(pcost, costId, team, goalPos);
+            cache = new FieldCache(idToCost(costId), costId, request.team, goalPos);
             fields.put(cache.mapKey, cache);
             FieldCache fcache = cache;
             //register field in main thread for iteration
@@ -1038,31 +1141,82 @@ public class ControlPathfinder implements Runnable{
             addingFrontier = false; //when it's a new field, there is no need to add to the frontier to merge the flowfield
         }
 
-        if(nodePath != null){
-            int cx = unitX / clusterSize, cy = unitY / clusterSize;
+        int cx = request.startX / clusterSize, cy = request.startY / clusterSize;
 
-            addFlowCluster(cache, cx, cy, addingFrontier);
+        addFlowCluster(cache, cx, cy, addingFrontier);
 
-            for(int i = -1; i < nodePath.size; i++){
-                int
-                current = i == -1 ? node : nodePath.items[i],
-                cluster = NodeIndex.cluster(current),
-                dir = NodeIndex.dir(current),
-                dx = Geometry.d4[dir].x,
-                dy = Geometry.d4[dir].y,
-                ox = cluster % cwidth + dx,
-                oy = cluster / cwidth + dy;
+        for(int i = -1; i < nodePath.size; i++){
+            int
+            current = i == -1 ? request.startNode : nodePath.items[i],
+            cluster = NodeIndex.cluster(current),
+            dir = NodeIndex.dir(current),
+            dx = Geometry.d4[dir].x,
+            dy = Geometry.d4[dir].y,
+            ox = cluster % cwidth + dx,
+            oy = cluster / cwidth + dy;
+
+            addFlowCluster(cache, cluster, addingFrontier);
+
+            //store directional/flipped version of cluster
+            if(ox >= 0 && oy >= 0 && ox < cwidth && oy < cheight){
+                int other = ox + oy * cwidth;
+
+                addFlowCluster(cache, other, addingFrontier);
+            }
+        }
+    }
+
+    /** Processes pending path requests: paths are found concurrently for each shard, then flow fields are updated in order. */
+    private void updateRequests(){
+        if(pendingRequests.isEmpty()) return;
+
+        //player orders go first; the sort is stable, so requests of the same priority keep their order
+        pendingRequests.sort(Structs.comparingBool(r -> !r.priority));
+
+        int amount = Math.min(pendingRequests.size, maxRequestBatch);
 
-                addFlowCluster(cache, cluster, addingFrontier);
+        for(int i = 0; i < amount; i++){
+            var request = pendingRequests.get(i);
+            request.pending = false;
+
+            if(request.invalidated) continue;
+
+            int key = request.team + request.costId * Team.all.length;
+            PathShard shard = shards.get(key);
+            if(shard == null){
+                shards.put(key, shard = new PathShard(request.team, request.costId));
+            }
 
-                //store directional/flipped version of cluster
-                if(ox >= 0 && oy >= 0 && ox < cwidth && oy < cheight){
-                    int other = ox + oy * cwidth;
+            if(shard.requests.isEmpty()){
+                activeShards.add(shard);
 
-                    addFlowCluster(cache, other, addingFrontier);
+                //the team array is shared between shards, so it must be created beforehand
+                if(clusters[request.team] == null){
+                    clusters[request.team] = new Cluster[Team.all.length][];
                 }
             }
+
+            request.startX = request.unit.tileX();
+            request.startY = request.unit.tileY();
+            shard.requests.add(request);
+        }
+
+        pendingRequests.removeRange(0, amount - 1);
+
+        parallel(activeShards.size, i -> {
+            var shard = activeShards.items[i];
+            for(int j = 0; j < shard.requests.size; j++){
+                findPath(shard, shard.requests.get(j));
+            }
+        });
+
+        for(var shard : activeShards){
+            for(var request : shard.requests){
+                applyPath(request);
+            }
+            shard.clear();
         }
+        activeShards.clear();
     }
 
     private PathCost idToCost(int costId){
@@ -1248,11 +1402,11 @@ public class ControlPathfinder implements Runnable{
         }else if(request == null){
 
             //queue new request.
-            unitRequests.put(unit, request = new PathRequest(unit, team, costId, destPos));
+            unitRequests.put(unit, request = new PathRequest(unit, team, costId, destPos, unit.controller() instanceof CommandAI && !unit.team.isOnlyAI()));
 
             PathRequest f = request;
 
-            //on the pathfinding thread: initialize the request
+            //on the pathfinding thread: queue the request for initialization
             queue.post(() -> {
                 threadPathRequests.add(f);
                 recalculatePath(f);
@@ -1269,8 +1423,12 @@ public class ControlPathfinder implements Runnable{
         return false;
     }
 
+    /** Queues a request for initialization in the next batch. */
     private void recalculatePath(PathRequest request){
-        initializePathRequest(request, request.team, request.costId, request.unit.tileX(), request.unit.tileY(), request.destination % wwidth, request.destination / wwidth);
+        if(!request.pending){
+            request.pending = true;
+            pendingRequests.add(request);
+        }
     }
 
     private int getCost(FieldCache cache, int x, int y, boolean requeue){
@@ -1562,10 +1720,17 @@ public class ControlPathfinder implements Runnable{
                         }
                     }
 
-                    //each update time (not total!) no longer than maxUpdate
+                    updateRequests();
+
                     for(FieldCache cache : fields.values()){
-                        updateFields(cache, maxUpdate);
+                        if(!cache.frontier.isEmpty()){
+                            activeFields.add(cache);
+                        }
                     }
+
+                    //each update time (not total!) no longer than maxUpdate; fields are independent, so they are updated concurrently
+                    parallel(activeFields.size, i -> updateFields(activeFields.items[i], maxUpdate));
+                    activeFields.clear();
                 }
 
                 try{
@@ -1580,6 +1745,11 @@ public class ControlPathfinder implements Runnable{
         }
     }
 
+    /** Runs a task for each index in [0, size) on the worker pool, and waits for it to finish. The pathfinding thread takes work too. */
+    void parallel(int size, Intc task){
+        Parallel.forEach(size, workers, workerThreads, task);
+    }
+
     @Struct
     static class IntraEdgeStruct{
         @StructField(8)
@@ -76,6 +76,20 @@ public class Pathfinder implements Runnable{
     /** Current pathfinding thread */
     @Nullable Thread thread;
     IntSeq tmpArray = new IntSeq();
+    /** positions of tiles whose cost changed since the last repair; must be synchronized on */
+    final IntSeq changedTiles = new IntSeq();
+    /** pathfinding thread only; buffers for incremental repair */
+    final IntSeq repairTiles = new IntSeq(), repairInvalid = new IntSeq();
+    final IntQueue repairQueue = new IntQueue();
+
+    /** Number of incremental flow field repairs done. */
+    public volatile int repairs;
+    /** Number of times a flow field had to be fully recalculated after a tile change, instead of being repaired. */
+    public volatile int fullUpdates;
+    /** Tiles whose weights were invalidated by the last repair. */
+    public volatile int lastRepairInvalidated;
+    /** Tiles that were re-expanded after the last repair, including invalidated ones. */
+    public volatile int lastRepairExpanded;
 
     public Pathfinder(){
         clearCache();
@@ -90,6 +104,9 @@ public class Pathfinder implements Runnable{
             threadList = new Seq<>();
             mainList = new Seq<>();
             clearCache();
+            synchronized(changedTiles){
+                changedTiles.clear();
+            }
 
             for(int i = 0; i < tiles.length; i++){
                 Tile tile = world.tiles.geti(i);
@@ -217,16 +234,27 @@ public class Pathfinder implements Runnable{
     }
 
     /** Update a tile in the internal pathfinding grid.
-     * Causes a complete pathfinding recalculation. Main thread only. */
+     * Flow fields are repaired around the changed tiles. Main thread only. */
     public void updateTile(Tile tile){
         if(net.client()) return;
 
-        tile.getLinkedTiles(t -> {
-            int pos = t.array();
-            if(pos < tiles.length){
-                tiles[pos] = packTile(t);
-            }
-        });
+        synchronized(changedTiles){
+            tile.getLinkedTiles(t -> {
+                int pos = t.array();
+                if(pos < tiles.length){
+                    tiles[pos] = packTile(t);
+                    changedTiles.add(pos);
+
+                    //neighbors may have had their nearSolid flag changed
+                    for(int i = 0; i < 4; i++){
+                        Tile other = t.nearby(i);
+                        if(other != null){
+                            changedTiles.add(other.array());
+                        }
+                    }
+                }
+            });
+        }
 
         //can't iterate through array so use the map, which should not lead to problems
         for(Flowfield path : mainList){
@@ -237,12 +265,6 @@ public class Pathfinder implements Runnable{
             }
         }
 
-        //mark every flow field as dirty, so it updates when it's done
-        queue.post(() -> {
-            for(Flowfield data : threadList){
-                data.dirty = true;
-            }
-        });
     }
 
     /** Thread implementation. */
@@ -255,6 +277,18 @@ public class Pathfinder implements Runnable{
                 if(state.isPlaying()){
                     queue.run();
 
+                    if(changedTiles.size > 0){
+                        synchronized(changedTiles){
+                            repairTiles.clear();
+                            repairTiles.addAll(changedTiles);
+                            changedTiles.clear();
+                        }
+
+                        for(Flowfield data : threadList){
+                            repairField(data, repairTiles);
+                        }
+                    }
+
                     //each update time (not total!) no longer than maxUpdate
                     for(Flowfield data : threadList){
 
@@ -353,6 +387,8 @@ public class Pathfinder implements Runnable{
 
         //increment search, but do not clear the frontier
         path.search++;
+        path.searching = true;
+        path.repairing = false;
 
         synchronized(path.targets){
             //add targets
@@ -363,6 +399,122 @@ public class Pathfinder implements Runnable{
                 path.searches[pos] = path.search;
                 path.frontier.addFirst(pos);
             }
+
+            path.targetHash = path.targetHash();
+        }
+    }
+
+    /**
+     * Repairs a flow field after the costs of some tiles changed. Only the weights that depended on these tiles are invalidated;
+     * the frontier is then seeded with the valid tiles around them, so only the affected area is re-expanded.
+     * Falls back to a full update if a full search is still running or the targets changed. Pathfinding thread only.
+     */
+    private void repairField(Flowfield path, IntSeq changed){
+        boolean targetsChanged;
+        synchronized(path.targets){
+            targetsChanged = path.targetHash != path.targetHash();
+        }
+
+        if(path.searching || path.dirty || !path.hasComplete || targetsChanged){
+            path.dirty = true;
+            fullUpdates ++;
+            return;
+        }
+
+        int search = path.search;
+        int[] weights = path.weights, searches = path.searches;
+        IntQueue queue = repairQueue;
+        IntSeq invalid = repairInvalid;
+        queue.clear();
+        invalid.clear();
+
+        for(int i = 0; i < changed.size; i++){
+            int pos = changed.items[i];
+            if(searches[pos] == search && weights[pos] != impassable){
+                queue.addFirst(pos);
+            }
+        }
+
+        //invalidate every tile that can no longer reach a target through valid neighbors; invalid tiles are marked with a search ID of 0
+        while(queue.size > 0){
+            int pos = queue.removeLast();
+            if(searches[pos] != search || supported(path, pos)) continue;
+
+            searches[pos] = 0;
+            invalid.add(pos);
+
+            int weight = weights[pos], x = pos % wwidth, y = pos / wwidth;
+            for(Point2 point : Geometry.d4){
+                int dx = x + point.x, dy = y + point.y;
+                if(dx < 0 || dy < 0 || dx >= wwidth || dy >= wheight) continue;
+
+                int other = dx + dy * wwidth;
+                int otherCost = path.cost.getCost(path.team.id, tiles[other]);
+
+                //tiles that got their weight through this one need to be checked again
+                if(searches[other] == search && weights[other] > 0 && otherCost != impassable && weights[other] == weight + otherCost){
+                    queue.addFirst(other);
+                }
+            }
+        }
+
+        for(int i = 0; i < invalid.size; i++){
+            weights[invalid.items[i]] = impassable;
+        }
+
+        //seed the frontier with the valid tiles bordering the changed and invalidated ones
+        for(int i = 0; i < invalid.size; i++){
+            seedRepair(path, invalid.items[i]);
+        }
+
+        for(int i = 0; i < changed.size; i++){
+            seedRepair(path, changed.items[i]);
+        }
+
+        path.expanded = 0;
+        path.repairing = true;
+        lastRepairInvalidated = invalid.size;
+        repairs ++;
+    }
+
+    /** @return whether this tile still has a valid neighbor that provides its current weight (or a lower one). */
+    private boolean supported(Flowfield path, int pos){
+        int weight = path.weights[pos];
+        //targets are always valid
+        if(weight == 0) return true;
+
+        int cost = path.cost.getCost(path.team.id, tiles[pos]);
+        if(cost == impassable) return false;
+
+        int x = pos % wwidth, y = pos / wwidth;
+        for(Point2 point : Geometry.d4){
+            int dx = x + point.x, dy = y + point.y;
+            if(dx < 0 || dy < 0 || dx >= wwidth || dy >= wheight) continue;
+
+            int other = dx + dy * wwidth;
+            if(path.searches[other] == path.search && path.weights[other] != impassable && path.weights[other] + cost <= weight){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Adds a tile and its neighbors to the frontier, if they have valid weights. */
+    private void seedRepair(Flowfield path, int pos){
+        int x = pos % wwidth, y = pos / wwidth;
+
+        if(path.searches[pos] == path.search && path.weights[pos] != impassable){
+            path.frontier.addFirst(pos);
+        }
+
+        for(Point2 point : Geometry.d4){
+            int dx = x + point.x, dy = y + point.y;
+            if(dx < 0 || dy < 0 || dx >= wwidth || dy >= wheight) continue;
+
+            int other = dx + dy * wwidth;
+            if(path.searches[other] == path.search && path.weights[other] != impassable){
+                path.frontier.addFirst(other);
+            }
         }
     }
 
@@ -391,12 +543,16 @@ public class Pathfinder implements Runnable{
             path.weights[i] = impassable;
         }
 
-        //add targets
+        //add targets; they need the current search ID, or the first expansion would overwrite their weights
         for(int i = 0; i < path.targets.size; i++){
             int pos = path.targets.get(i);
             path.weights[pos] = 0;
+            path.searches[pos] = path.search;
             path.frontier.addFirst(pos);
         }
+
+        path.targetHash = path.targetHash();
+        path.searching = true;
     }
 
     /** Update the frontier for a path. Pathfinding thread only. */
@@ -410,6 +566,7 @@ public class Pathfinder implements Runnable{
             int tile = path.frontier.removeLast();
             if(path.weights == null) return; //something went horribly wrong, bail
             int cost = path.weights[tile];
+            path.expanded ++;
 
             //pathfinding overflowed for some reason, time to bail. the next block update will handle this, hopefully
             if(path.frontier.size >= world.width() * world.height()){
@@ -430,7 +587,7 @@ public class Pathfinder implements Runnable{
                     if((path.weights[newPos] > cost + otherCost || path.searches[newPos] < path.search) && otherCost != impassable){
                         path.frontier.addFirst(newPos);
                         path.weights[newPos] = cost + otherCost;
-                        path.searches[newPos] = (short)path.search;
+                        path.searches[newPos] = path.search;
                     }
                 }
             }
@@ -444,10 +601,17 @@ public class Pathfinder implements Runnable{
             }
         }
 
+        path.searching = false;
+
         //there WERE some things in the frontier, but now they are gone, so the path is done; copy over latest data
         if(hadAny && path.frontier.size == 0){
             System.arraycopy(path.weights, 0, path.completeWeights, 0, path.weights.length);
             path.hasComplete = true;
+
+            if(path.repairing){
+                path.repairing = false;
+                lastRepairExpanded = path.expanded;
+            }
         }
     }
 
@@ -496,6 +660,14 @@ public class Pathfinder implements Runnable{
         protected volatile boolean hasComplete;
         /** If true, this flow field needs updating. This flag is only set to false once the flow field finishes and the weights are copied over. */
         protected boolean dirty = false;
+        /** Whether a full search from the targets is in progress. Incremental repairs are not possible during it. */
+        protected boolean searching;
+        /** Whether the frontier currently holds an incremental repair. */
+        protected boolean repairing;
+        /** Amount of tiles expanded since the last repair began. */
+        protected int expanded;
+        /** Hash of the target positions that the current weights were computed for. */
+        protected int targetHash;
 
         /** costs of getting to a specific tile */
         public int[] weights;
@@ -532,6 +704,15 @@ public class Pathfinder implements Runnable{
             getPositions(targets);
         }
 
+        /** @return a hash of the current target positions. Must be synchronized on targets. */
+        int targetHash(){
+            int hash = targets.size;
+            for(int i = 0; i < targets.size; i++){
+                hash = hash * 31 + targets.items[i];
+            }
+            return hash;
+        }
+
         protected boolean passable(int pos){
             int amount = cost.getCost(team.id, pathfinder.tiles[pos]);
             //edge case: naval reports costs of 6000+ for non-liquids, even though they are not technically passable
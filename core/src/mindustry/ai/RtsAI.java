@@ -113,7 +113,7 @@ public class RtsAI{
             if(used.add(unit.id) && unit.isCommandable() && !unit.command().hasCommand() && !unit.command().isAttacking()){
                 squad.clear();
                 float rad = squadRadius + unit.hitSize*1.5f;
-                data.tree().intersect(unit.x - rad/2f, unit.y - rad/2f, rad, rad, squad);
+                Units.nearby(data.team, unit.x - rad/2f, unit.y - rad/2f, rad, rad, squad::add);
 
                 squad.truncate(data.team.rules().rtsMaxSquad);
 
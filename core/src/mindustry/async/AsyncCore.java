@@ -4,25 +4,50 @@ import arc.*;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.game.EventType.*;
+import mindustry.net.Administration.*;
 
+import java.util.*;
 import java.util.concurrent.*;
 
 import static mindustry.Vars.*;
 
 public class AsyncCore{
+    /** Resource flags used by {@link AsyncProcess#reads()} and {@link AsyncProcess#writes()}. */
+    public static final int
+    resUnits = 1,
+    resBullets = 1 << 1,
+    resBuildings = 1 << 2,
+    resTiles = 1 << 3,
+    resPower = 1 << 4,
+    resFog = 1 << 5,
+    resNet = 1 << 6,
+    resPhysics = 1 << 7;
+
     //all processes to be executed each frame
     public final Seq<AsyncProcess> processes = Seq.with(
         new PhysicsProcess()
     );
 
+    /** Processes grouped by dependencies and resource access. Stages run in order; processes in the same stage run concurrently. */
+    public final Seq<AsyncStage> stages = new Seq<>();
+    /** Amount of worker threads used for processing. */
+    public final int threads = Math.max(OS.cores - 1, 1);
+    /** Total time taken by all stages in the last frame, in nanoseconds. */
+    public volatile long totalTime;
+
     //futures to be awaited
     private final Seq<Future<?>> futures = new Seq<>();
+    //process list that the current stages were built from
+    private final Seq<AsyncProcess> built = new Seq<>();
+    private final Runnable runner = this::runStages;
+    private boolean dirty = true;
 
     private ExecutorService executor;
 
     public AsyncCore(){
         Events.on(WorldLoadEvent.class, e -> {
             complete();
+            selectPhysics();
             for(AsyncProcess p : processes){
                 p.init();
             }
@@ -45,9 +70,14 @@ public class AsyncCore{
 
             futures.clear();
 
-            //init executor with size of potentially-modified process list
+            //re-stage if the process list was modified
+            if(dirty || !built.equals(processes)){
+                rebuild();
+            }
+
+            //init executor; shared by all stages
             if(executor == null){
-                executor = Executors.newFixedThreadPool(processes.size, r -> {
+                executor = Executors.newFixedThreadPool(threads, r -> {
                     Thread thread = new Thread(r, "AsyncLogic-Thread");
                     thread.setDaemon(true);
                     thread.setUncaughtExceptionHandler((t, e) -> Threads.throwAppException(e));
@@ -55,11 +85,14 @@ public class AsyncCore{
                 });
             }
 
-            //submit all tasks
-            for(AsyncProcess p : processes){
-                if(p.shouldProcess()){
-                    futures.add(executor.submit(p::process));
-                }
+            boolean any = false;
+            for(AsyncStage stage : stages){
+                any |= stage.prepare();
+            }
+
+            //submit the stage runner, which hands out work to the rest of the pool
+            if(any){
+                futures.add(executor.submit(runner));
             }
         }
     }
@@ -75,6 +108,89 @@ public class AsyncCore{
         }
     }
 
+    /** Replaces the physics process with the one selected by {@link Config#parallelPhysics}. Only dedicated servers use the parallel solver. */
+    private void selectPhysics(){
+        boolean parallel = headless && Config.parallelPhysics.bool();
+
+        for(int i = 0; i < processes.size; i++){
+            AsyncProcess p = processes.get(i);
+            if(parallel && p instanceof PhysicsProcess){
+                p.reset();
+                processes.set(i, new ParallelPhysicsProcess());
+            }else if(!parallel && p instanceof ParallelPhysicsProcess){
+                p.reset();
+                processes.set(i, new PhysicsProcess());
+            }
+        }
+    }
+
+    /** Marks the stages for rebuilding. Call this if the dependencies or resource access of a process change. */
+    public void invalidate(){
+        dirty = true;
+    }
+
+    /** Groups processes into stages. Dependencies always run in an earlier stage; processes with conflicting resource access never share a stage. */
+    public void rebuild(){
+        complete();
+
+        stages.clear();
+        built.set(processes);
+        dirty = false;
+
+        int size = processes.size;
+        int[] stageOf = new int[size];
+        Arrays.fill(stageOf, -1);
+        int remaining = size;
+
+        while(remaining > 0){
+            boolean progress = false;
+
+            outer:
+            for(int i = 0; i < size; i++){
+                if(stageOf[i] != -1) continue;
+
+                AsyncProcess p = processes.get(i);
+                int min = 0;
+
+                for(int j = 0; j < size; j++){
+                    if(i != j && p.dependsOn(processes.get(j))){
+                        //dependency not placed yet, try again later
+                        if(stageOf[j] == -1) continue outer;
+                        min = Math.max(min, stageOf[j] + 1);
+                    }
+                }
+
+                while(min < stages.size && stages.get(min).conflicts(p)){
+                    min ++;
+                }
+
+                if(min >= stages.size){
+                    stages.add(new AsyncStage());
+                }
+
+                stages.get(min).add(p);
+                stageOf[i] = min;
+                remaining --;
+                progress = true;
+            }
+
+            if(!progress){
+                throw new IllegalStateException("Async processes have cyclic dependencies: " + processes.select(p -> stageOf[processes.indexOf(p, true)] == -1).map(AsyncProcess::name));
+            }
+        }
+    }
+
+    private void runStages(){
+        long start = Time.nanos();
+
+        //stages are run in order; each stage blocks until all its processes are done
+        for(int i = 0; i < stages.size; i++){
+            stages.get(i).run(executor, threads);
+        }
+
+        totalTime = Time.timeSinceNanos(start);
+    }
+
     private void complete(){
         //wait for all threads to stop processing
         for(var future : futures){
@@ -88,4 +204,48 @@ public class AsyncCore{
         //clear processed futures
         futures.clear();
     }
+
+    /** A set of processes that can run concurrently. */
+    public static class AsyncStage{
+        public final Seq<AsyncProcess> processes = new Seq<>(AsyncProcess.class);
+        /** Time taken to complete this stage in the last frame, in nanoseconds. */
+        public volatile long time;
+        /** Combined resource access of all processes in this stage. */
+        public int reads, writes;
+
+        private boolean[] active = {};
+
+        public boolean conflicts(AsyncProcess p){
+            return (p.writes() & (reads | writes)) != 0 || (p.reads() & writes) != 0;
+        }
+
+        void add(AsyncProcess p){
+            processes.add(p);
+            reads |= p.reads();
+            writes |= p.writes();
+        }
+
+        /** Sync. @return whether any process in this stage should run. */
+        boolean prepare(){
+            if(active.length != processes.size) active = new boolean[processes.size];
+
+            boolean any = false;
+            for(int i = 0; i < processes.size; i++){
+                any |= (active[i] = processes.items[i].shouldProcess());
+            }
+            return any;
+        }
+
+        void run(ExecutorService executor, int threads){
+            long start = Time.nanos();
+
+            Parallel.forEach(processes.size, executor, threads, i -> {
+                if(active[i]){
+                    processes.items[i].process();
+                }
+            });
+
+            time = Time.timeSinceNanos(start);
+        }
+    }
 }
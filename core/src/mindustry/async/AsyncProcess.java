@@ -20,4 +20,24 @@ public interface AsyncProcess{
     default boolean shouldProcess(){
         return true;
     }
+
+    /** @return a bitmask of {@link AsyncCore} resources (e.g. {@link AsyncCore#resUnits}) that {@link #process()} reads. */
+    default int reads(){
+        return 0;
+    }
+
+    /** @return a bitmask of {@link AsyncCore} resources that {@link #process()} writes. Processes with conflicting access are never run in the same stage. */
+    default int writes(){
+        return 0;
+    }
+
+    /** @return whether this process must only start after the other process has finished processing in the same frame. */
+    default boolean dependsOn(AsyncProcess other){
+        return false;
+    }
+
+    /** @return a display name, used for timing output. */
+    default String name(){
+        return getClass().getSimpleName();
+    }
 }
@@ -0,0 +1,102 @@
+package mindustry.async;
+
+import arc.func.*;
+import arc.util.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Runs loops on multiple threads. The calling thread always takes work as well, so a loop never waits on an executor that is busy with other tasks,
+ * and loops may be nested. Indices are claimed dynamically, so tasks that write only to their own index produce the same result on any amount of threads.
+ */
+public class Parallel{
+
+    /** Runs a task for every index in [0, count) on {@link mindustry.Vars#mainExecutor}, and waits for all of them to finish. */
+    public static void forEach(int count, Intc task){
+        forEach(count, mainExecutor, OS.cores, task);
+    }
+
+    /**
+     * Runs a task for every index in [0, count), and waits for all of them to finish.
+     * If a task throws, indices that have not started yet are skipped, and the first error is thrown on the calling thread once all running tasks are done.
+     * @param executor executor to run tasks on in addition to the calling thread; if null, everything runs on the calling thread.
+     * @param threads maximum amount of threads to use, including the calling thread.
+     */
+    public static void forEach(int count, @Nullable Executor executor, int threads, Intc task){
+        if(count <= 0) return;
+
+        if(count == 1 || threads <= 1 || executor == null){
+            for(int i = 0; i < count; i++){
+                task.get(i);
+            }
+            return;
+        }
+
+        //state is separate for each loop, so a worker that starts late can never claim indices of another one
+        Batch batch = new Batch(count, task);
+
+        for(int i = 1; i < Math.min(count, threads); i++){
+            executor.execute(batch);
+        }
+
+        batch.run();
+
+        synchronized(batch){
+            while(batch.done.get() < count){
+                try{
+                    batch.wait();
+                }catch(InterruptedException e){
+                    //keep the interrupt flag, so threads that are being stopped still see it
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        if(batch.error.get() != null){
+            throw new RuntimeException(batch.error.get());
+        }
+    }
+
+    /**
+     * Splits [0, total) into chunks and runs a task for each of them on {@link mindustry.Vars#mainExecutor}, see {@link #forEach(int, Intc)}.
+     * @param task receives the start and end (exclusive) of a chunk.
+     */
+    public static void forChunks(int total, int chunkSize, Intc2 task){
+        int chunks = (total + chunkSize - 1) / chunkSize;
+        forEach(chunks, i -> task.get(i * chunkSize, Math.min((i + 1) * chunkSize, total)));
+    }
+
+    static class Batch implements Runnable{
+        final AtomicInteger next = new AtomicInteger(), done = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final int count;
+        final Intc task;
+
+        Batch(int count, Intc task){
+            this.count = count;
+            this.task = task;
+        }
+
+        @Override
+        public void run(){
+            int i;
+            while((i = next.getAndIncrement()) < count){
+                try{
+                    if(error.get() == null) task.get(i);
+                }catch(Throwable t){
+                    error.compareAndSet(null, t);
+                }
+
+                if(done.incrementAndGet() >= count){
+                    synchronized(this){
+                        notifyAll();
+                    }
+                }
+            }
+        }
+    }
+}
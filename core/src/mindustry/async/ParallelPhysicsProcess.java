@@ -0,0 +1,240 @@
+package mindustry.async;
+
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.async.PhysicsProcess.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * A physics process that keeps bodies in flat arrays and resolves overlaps on multiple threads. Selected with {@link Config#parallelPhysics}.
+ * <p>
+ * Each step, bodies are sorted by layer and grid cell, and overlaps are found by searching the cells around each body.
+ * Unlike {@link PhysicsProcess}, every body is pushed out of all bodies it overlaps based on the positions at the start of the step,
+ * so each body only writes its own movement, and the result does not depend on the order or amount of threads bodies are processed on.
+ */
+public class ParallelPhysicsProcess implements AsyncProcess{
+    /** Size of a broadphase cell, in world units. Bodies wider than a cell are checked against every body of their layer instead. */
+    private static final float cellSize = tilesize * 4f;
+    /** Offset of cell coordinates, so bodies slightly outside the world still get separate cells. */
+    private static final int cellOffset = 1024;
+    /** Bits of a sorted entry used for the body index. */
+    private static final int indexBits = 24;
+    /** Amount of bodies resolved by a single task. */
+    private static final int chunkSize = 256;
+    //how much to soften movement by
+    private static final float scl = 1.25f;
+
+    private boolean initialized;
+    private int size;
+    private PhysicRef[] refs = new PhysicRef[64];
+    private float[] x = new float[64], y = new float[64], radius = new float[64], mass = new float[64], moveX = new float[64], moveY = new float[64];
+    private int[] layer = new int[64];
+    private boolean[] local = new boolean[64];
+
+    //cell key and index of all regular bodies, sorted by cell, then index
+    private long[] sorted = new long[64], cellKeys = new long[64];
+    private int[] order = new int[64];
+    private int sortedSize;
+    private final IntSeq large = new IntSeq();
+
+    @Override
+    public void begin(){
+        if(!initialized) return;
+        boolean client = net.client();
+
+        //remove stale entities
+        for(int i = 0; i < size; i++){
+            if(!refs[i].entity.isAdded()){
+                refs[i].entity.physref(null);
+                removeIndex(i);
+                i--;
+            }
+        }
+
+        //find Units without bodies and assign them
+        for(Unit entity : Groups.unit){
+            if(entity == null || entity.type == null || !entity.type.physics) continue;
+
+            if(entity.physref == null){
+                if(size >= refs.length) resize(size * 2);
+
+                PhysicRef ref = new PhysicRef(entity, null);
+                ref.index = size;
+                refs[size] = ref;
+                radius[size] = entity.hitSize / 2f;
+                mass[size] = entity.mass();
+                size ++;
+
+                entity.physref = ref;
+            }
+
+            //save last position
+            PhysicRef ref = entity.physref;
+            int i = ref.index;
+
+            layer[i] = entity.collisionLayer();
+            x[i] = ref.x = entity.x;
+            y[i] = ref.y = entity.y;
+            local[i] = !client || entity.isLocal();
+        }
+    }
+
+    @Override
+    public void process(){
+        if(!initialized || size == 0) return;
+
+        //broadphase: sort regular bodies by cell; large bodies are kept in a separate list
+        sortedSize = 0;
+        large.clear();
+        for(int i = 0; i < size; i++){
+            if(radius[i] * 2f > cellSize){
+                large.add(i);
+            }else{
+                sorted[sortedSize++] = (key(layer[i], cell(x[i]), cell(y[i])) << indexBits) | i;
+            }
+        }
+
+        Arrays.sort(sorted, 0, sortedSize);
+        for(int k = 0; k < sortedSize; k++){
+            cellKeys[k] = sorted[k] >>> indexBits;
+            order[k] = (int)(sorted[k] & ((1 << indexBits) - 1));
+        }
+
+        //narrowphase: bodies are independent, so they can be split between threads freely
+        Parallel.forChunks(size, chunkSize, (start, end) -> {
+            for(int i = start; i < end; i++){
+                resolve(i);
+            }
+        });
+    }
+
+    @Override
+    public void end(){
+        if(!initialized) return;
+
+        //move entities
+        for(int i = 0; i < size; i++){
+            refs[i].entity.move(moveX[i], moveY[i]);
+        }
+    }
+
+    @Override
+    public int writes(){
+        return AsyncCore.resPhysics;
+    }
+
+    @Override
+    public void reset(){
+        Arrays.fill(refs, 0, size, null);
+        size = 0;
+        initialized = false;
+    }
+
+    @Override
+    public void init(){
+        reset();
+
+        initialized = true;
+    }
+
+    /** Computes how far a body is pushed out of all bodies it overlaps. Only writes the movement of this body. */
+    private void resolve(int i){
+        moveX[i] = moveY[i] = 0f;
+
+        //for clients, the only body that collides is the local one; all other physics simulations are handled by the server.
+        if(!local[i]) return;
+
+        int l = layer[i];
+        float range = radius[i] + cellSize / 2f;
+        int minx = cell(x[i] - range), maxx = cell(x[i] + range), miny = cell(y[i] - range), maxy = cell(y[i] + range);
+
+        //cells and bodies inside them are always visited in the same order
+        for(int cy = miny; cy <= maxy; cy++){
+            for(int cx = minx; cx <= maxx; cx++){
+                long key = key(l, cx, cy);
+                for(int k = lowerBound(key); k < sortedSize && cellKeys[k] == key; k++){
+                    push(i, order[k]);
+                }
+            }
+        }
+
+        for(int k = 0; k < large.size; k++){
+            int j = large.items[k];
+            if(layer[j] == l) push(i, j);
+        }
+    }
+
+    private void push(int i, int j){
+        if(i == j) return;
+
+        float dx = x[i] - x[j], dy = y[i] - y[j];
+        float rs = radius[i] + radius[j];
+        float dst = Mathf.dst(x[i], y[i], x[j], y[j]);
+
+        if(dst < rs && dst > 0f){
+            //same split as PhysicsProcess: the lighter body is pushed further
+            float f = (rs - dst) / dst * mass[j] / (mass[i] + mass[j]) / scl;
+            moveX[i] += dx * f;
+            moveY[i] += dy * f;
+        }
+    }
+
+    private int lowerBound(long key){
+        int lo = 0, hi = sortedSize;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(cellKeys[mid] < key){
+                lo = mid + 1;
+            }else{
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int cell(float v){
+        return Mathf.clamp((int)Math.floor(v / cellSize) + cellOffset, 0, 0xffff);
+    }
+
+    private static long key(int layer, int cx, int cy){
+        return ((long)layer << 32) | ((long)cx << 16) | cy;
+    }
+
+    private void removeIndex(int i){
+        //move the last body into the free slot
+        int last = size - 1;
+        if(i != last){
+            refs[i] = refs[last];
+            refs[i].index = i;
+            x[i] = x[last];
+            y[i] = y[last];
+            radius[i] = radius[last];
+            mass[i] = mass[last];
+            layer[i] = layer[last];
+            local[i] = local[last];
+        }
+        refs[last] = null;
+        size --;
+    }
+
+    private void resize(int capacity){
+        refs = Arrays.copyOf(refs, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        moveX = Arrays.copyOf(moveX, capacity);
+        moveY = Arrays.copyOf(moveY, capacity);
+        layer = Arrays.copyOf(layer, capacity);
+        local = Arrays.copyOf(local, capacity);
+        sorted = new long[capacity];
+        cellKeys = new long[capacity];
+        order = new int[capacity];
+    }
+}
@@ -92,6 +92,11 @@ public class PhysicsProcess implements AsyncProcess{
         }
     }
 
+    @Override
+    public int writes(){
+        return AsyncCore.resPhysics;
+    }
+
     @Override
     public void reset(){
         if(physics != null){
@@ -109,8 +114,11 @@ public class PhysicsProcess implements AsyncProcess{
 
     public static class PhysicRef{
         public Physicsc entity;
+        /** Body of this entity. Null when used by a {@link ParallelPhysicsProcess}, which keeps bodies in arrays instead. */
         public PhysicsBody body;
         public float x, y;
+        /** Index of the body in a {@link ParallelPhysicsProcess}. */
+        public int index = -1;
 
         public PhysicRef(Physicsc entity, PhysicsBody body){
             this.entity = entity;
@@ -2603,5 +2603,8 @@ public class Fx{
         Lines.rect(rect);
 
         Draw.reset();
-    });
+    }),
+
+    //same as trailFade, but takes ownership of the trail and returns it to its pool when done
+    bulletTrailFade = new Effect(400f, e -> trailFade.renderer.get(e)).poolData(true);
 }
@@ -489,7 +489,9 @@ public class Logic implements ApplicationListener{
                 state.envAttrs.add(state.rules.attributes);
                 Groups.weather.each(w -> state.envAttrs.add(w.weather.attrs, w.opacity));
 
+                buildingUpdater.begin();
                 Groups.update();
+                buildingUpdater.update();
             }
 
             if(runStateCheck){
@@ -55,6 +55,11 @@ public class NetClient implements ApplicationListener{
     /** Byte stream for reading in snapshots. */
     private ReusableByteInStream byteStream = new ReusableByteInStream();
     private DataInputStream dataStream = new DataInputStream(byteStream);
+    /** Byte stream for reading the sync data of a single entity in delta snapshots. */
+    private ReusableByteInStream entityStream = new ReusableByteInStream();
+    private DataInputStream entityDataStream = new DataInputStream(entityStream);
+    /** Received entity data, used as a baseline for delta snapshots. */
+    private SnapshotDeltas.Receiver snapshotDeltas = new SnapshotDeltas.Receiver();
     /** Packet handlers for custom types of messages. */
     private ObjectMap<String, Seq<Cons<String>>> customPacketHandlers = new ObjectMap<>();
 
@@ -402,6 +407,10 @@ public class NetClient implements ApplicationListener{
         int id = input.readInt();
         byte typeID = input.readByte();
 
+        readSyncEntity(id, typeID, read);
+    }
+
+    public static void readSyncEntity(int id, byte typeID, Reads read){
         Syncc entity = Groups.sync.getByID(id);
         boolean add = false, created = false;
 
@@ -449,6 +458,34 @@ public class NetClient implements ApplicationListener{
         }
     }
 
+    @Remote(variants = Variant.one, priority = PacketPriority.low, unreliable = true)
+    public static void entityDeltaSnapshot(int packet, short amount, byte[] data){
+        try{
+            netClient.byteStream.setBytes(data);
+            DataInputStream input = netClient.dataStream;
+            var deltas = netClient.snapshotDeltas;
+
+            deltas.begin(packet);
+
+            for(int j = 0; j < amount; j++){
+                int id = input.readInt();
+                byte typeID = input.readByte();
+                byte[] sync = deltas.read(input, packet, id);
+
+                //the baseline was discarded; the server is asked to send this entity in full
+                if(sync == null) continue;
+
+                netClient.entityStream.setBytes(sync);
+                readSyncEntity(id, typeID, Reads.get(netClient.entityDataStream));
+            }
+
+            deltas.end(packet);
+        }catch(Exception e){
+            //don't disconnect, just log it
+            Log.err("Error reading entity snapshot", e);
+        }
+    }
+
     @Remote(variants = Variant.one, priority = PacketPriority.low, unreliable = true)
     public static void hiddenSnapshot(IntSeq ids){
         for(int i = 0; i < ids.size; i++){
@@ -581,6 +618,7 @@ public class NetClient implements ApplicationListener{
         quietReset = false;
         quiet = false;
         lastSent = 0;
+        snapshotDeltas.reset();
 
         Groups.clear();
         ui.chatfrag.clearMessages();
@@ -641,6 +679,12 @@ public class NetClient implements ApplicationListener{
             Core.camera.position.x, Core.camera.position.y,
             Core.camera.width, Core.camera.height
             );
+
+            if(snapshotDeltas.acks.size > 0 || snapshotDeltas.missing.size > 0){
+                Call.entitySnapshotAck(snapshotDeltas.acks, snapshotDeltas.missing);
+                snapshotDeltas.acks.clear();
+                snapshotDeltas.missing.clear();
+            }
         }
 
         if(timer.get(1, 60)){
@@ -27,7 +27,6 @@ import mindustry.world.*;
 import java.io.*;
 import java.net.*;
 import java.nio.*;
-import java.util.zip.*;
 
 import static arc.util.Log.*;
 import static mindustry.Vars.*;
@@ -39,7 +38,6 @@ public class NetServer implements ApplicationListener{
     private static final float blockSyncTime = 60 * 6, healthSyncTime = 30;
     private static final FloatBuffer fbuffer = FloatBuffer.allocate(20);
     private static final Writes dataWrites = new Writes(null);
-    private static final IntSeq hiddenIds = new IntSeq();
     private static final IntSeq healthSeq = new IntSeq(maxSnapshotSize / 4 + 1);
     private static final Vec2 vector = new Vec2();
     /** If a player goes away of their server-side coordinates by this distance, they get teleported back. */
@@ -115,6 +113,12 @@ public class NetServer implements ApplicationListener{
     private ReusableByteOutStream syncStream = new ReusableByteOutStream();
     /** Data stream for writing player sync data to. */
     private DataOutputStream dataStream = new DataOutputStream(syncStream);
+    /** Encodes entity snapshots from sync data captured once per frame. */
+    private SnapshotEncoder snapshots = new SnapshotEncoder(maxSnapshotSize);
+    /** Compressed world data, shared by players that join at around the same time. */
+    public WorldDataCache worldCache = new WorldDataCache();
+    /** Players that receive a snapshot in the current frame. */
+    private Seq<Player> syncPlayers = new Seq<>();
     /** Packet handlers for custom types of messages. */
     private ObjectMap<String, Seq<Cons2<Player, String>>> customPacketHandlers = new ObjectMap<>();
     /** Packet handlers for logic client data */
@@ -298,6 +302,10 @@ public class NetServer implements ApplicationListener{
             Events.fire(new PlayerConnect(player));
         });
 
+        //cached world data must never be sent after the world changes
+        Events.on(WorldLoadEvent.class, e -> worldCache.invalidate());
+        Events.on(ResetEvent.class, e -> worldCache.invalidate());
+
         registerCommands();
     }
 
@@ -480,6 +488,8 @@ public class NetServer implements ApplicationListener{
                 }
 
                 player.getInfo().lastSyncTime = Time.millis();
+                //the client discards everything it received before this, so older cached data can't be used
+                worldCache.invalidate(player.con);
                 Call.worldDataBegin(player.con);
                 netServer.sendWorldData(player);
             }
@@ -499,14 +509,11 @@ public class NetServer implements ApplicationListener{
     }
 
     public void sendWorldData(Player player){
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        DeflaterOutputStream def = new FastDeflaterOutputStream(stream);
-        NetworkIO.writeWorld(player, def);
-        WorldStream data = new WorldStream();
-        data.stream = new ByteArrayInputStream(stream.toByteArray());
-        player.con.sendStream(data);
-
-        debug("Packed @ bytes of world data.", stream.size());
+        if(WorldDataCache.enabled()){
+            worldCache.send(player);
+        }else{
+            WorldDataCache.sendUncached(player);
+        }
     }
 
     public void addPacketHandler(String type, Cons2<Player, String> handler){
@@ -608,6 +615,21 @@ public class NetServer implements ApplicationListener{
         return Float.isInfinite(f) || Float.isNaN(f);
     }
 
+    @Remote(targets = Loc.client, unreliable = true)
+    public static void entitySnapshotAck(Player player, IntSeq packets, IntSeq missing){
+        var deltas = player.con == null ? null : player.con.snapshotDeltas;
+        if(deltas == null) return;
+
+        for(int i = 0; i < Math.min(packets.size, SnapshotDeltas.window); i++){
+            deltas.ack(packets.items[i]);
+        }
+
+        //acknowledged packets may have made missing data a baseline again, so this has to happen afterwards
+        for(int i = 0; i < missing.size; i++){
+            deltas.resend(missing.items[i]);
+        }
+    }
+
     @Remote(targets = Loc.client, unreliable = true)
     public static void clientSnapshot(
     Player player,
@@ -930,6 +952,19 @@ public class NetServer implements ApplicationListener{
     }
 
     public void writeEntitySnapshot(Player player) throws IOException{
+        snapshots.capture(Config.deltaSnapshots.bool(), Config.syncInterest.bool(), Config.syncFarInterval.num());
+        try{
+            writeStateSnapshot(player);
+            snapshots.queue(player);
+            snapshots.encode(false);
+            sendEntitySnapshots();
+        }finally{
+            snapshots.end();
+        }
+    }
+
+    /** Sends basic state data to a player. This is sent before every entity snapshot. */
+    public void writeStateSnapshot(Player player) throws IOException{
         byte tps = (byte)Math.min(Core.graphics.getFramesPerSecond(), 255);
         syncStream.reset();
         int activeTeams = (byte)state.teams.present.count(t -> t.cores.size > 0);
@@ -950,45 +985,27 @@ public class NetServer implements ApplicationListener{
         //write basic state data.
         Call.stateSnapshot(player.con, state.wavetime, state.wave, state.enemies, state.isPaused(), state.gameOver,
         universe.seconds(), tps, GlobalVars.rand.seed0, GlobalVars.rand.seed1, syncStream.toByteArray());
+    }
 
-        syncStream.reset();
-
-        hiddenIds.clear();
-        int sent = 0;
+    /** Sends all snapshots that have been encoded by {@link #snapshots}. */
+    private void sendEntitySnapshots(){
+        for(var out : snapshots.outputs()){
+            var con = out.player.con;
 
-        for(Syncc entity : Groups.sync){
-            //TODO write to special list
-            if(entity.isSyncHidden(player)){
-                hiddenIds.add(entity.id());
-                continue;
+            for(int i = 0; i < out.packets.size; i++){
+                if(con.snapshotDeltas != null){
+                    Call.entityDeltaSnapshot(con, out.packetIds.get(i), (short)out.amounts.get(i), out.packets.get(i));
+                }else{
+                    Call.entitySnapshot(con, (short)out.amounts.get(i), out.packets.get(i));
+                }
             }
 
-            //write all entities now
-            dataStream.writeInt(entity.id()); //write id
-            dataStream.writeByte(entity.classId() & 0xFF); //write type ID
-            entity.writeSync(Writes.get(dataStream)); //write entity
-
-            sent++;
-
-            if(syncStream.size() > maxSnapshotSize){
-                dataStream.close();
-                Call.entitySnapshot(player.con, (short)sent, syncStream.toByteArray());
-                sent = 0;
-                syncStream.reset();
+            if(out.hidden.size > 0){
+                Call.hiddenSnapshot(con, out.hidden);
             }
-        }
 
-        if(sent > 0){
-            dataStream.close();
-
-            Call.entitySnapshot(player.con, (short)sent, syncStream.toByteArray());
-        }
-
-        if(hiddenIds.size > 0){
-            Call.hiddenSnapshot(player.con, hiddenIds);
+            con.snapshotsSent++;
         }
-
-        player.con.snapshotsSent++;
     }
 
     public String fixName(String name){
@@ -1043,6 +1060,7 @@ public class NetServer implements ApplicationListener{
     void sync(){
         try{
             int interval = Config.snapshotInterval.num();
+            syncPlayers.clear();
             Groups.player.each(p -> !p.isLocal(), player -> {
                 if(player.con == null || !player.con.isConnected()){
                     onDisconnect(player, "disappeared");
@@ -1054,13 +1072,25 @@ public class NetServer implements ApplicationListener{
                 if(Time.timeSinceMillis(connection.syncTime) < interval || !connection.hasConnected) return;
 
                 connection.syncTime = Time.millis();
+                syncPlayers.add(player);
+            });
 
+            if(syncPlayers.any()){
+                //entity state is captured once on the main thread; after that, each player's snapshot can be encoded on any thread
+                snapshots.capture(Config.deltaSnapshots.bool(), Config.syncInterest.bool(), Config.syncFarInterval.num());
                 try{
-                    writeEntitySnapshot(player);
-                }catch(IOException e){
-                    e.printStackTrace();
+                    for(var player : syncPlayers){
+                        writeStateSnapshot(player);
+                        snapshots.queue(player);
+                    }
+
+                    snapshots.encode(headless && Config.parallelSnapshots.bool());
+                    sendEntitySnapshots();
+                }finally{
+                    snapshots.end();
+                    syncPlayers.clear();
                 }
-            });
+            }
 
             if(Groups.player.size() > 0 && Core.settings.getBool("blocksync") && timer.get(timerBlockSync, blockSyncTime)){
                 writeBlockSnapshots();
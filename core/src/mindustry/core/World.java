@@ -630,11 +630,7 @@ public class World{
                 //input for filter queries
                 GenerateInput input = new GenerateInput();
 
-                for(GenerateFilter filter : filters){
-                    filter.randomize();
-                    input.begin(width(), height(), (x, y) -> tiles.getn(x, y));
-                    filter.apply(tiles, input);
-                }
+                FilterPipeline.apply(tiles, filters, input, GenerateFilter::randomize);
             }
         }
     }
@@ -152,24 +152,39 @@ public class MapGenerateDialog extends BaseDialog{
         //writeback buffer
         long[] writeTiles = new long[editor.width() * editor.height()];
 
-        for(GenerateFilter filter : filters){
-            input.begin(editor.width(), editor.height(), editor::tile);
-
-            //write to buffer
-            for(int x = 0; x < editor.width(); x++){
-                for(int y = 0; y < editor.height(); y++){
-                    Tile tile = editor.tile(x, y);
-                    input.set(x, y, tile.block(), tile.floor(), tile.overlay());
-                    filter.apply(input);
-                    writeTiles[x + y*world.width()] = PackTile.get(input.block.id, input.floor.id, input.overlay.id);
+        for(int i = 0; i < filters.size;){
+            GenerateFilter filter = filters.get(i);
+            int end = i + 1;
+
+            if(filter.isPerTile()){
+                //runs of per-tile filters are applied in a single pass
+                end = FilterPipeline.perTileRun(filters, i);
+
+                for(int j = 0; j < editor.width() * editor.height(); j++){
+                    Tile tile = world.tiles.geti(j);
+                    writeTiles[j] = PackTile.get(tile.blockID(), tile.floorID(), tile.overlayID());
+                }
+
+                FilterPipeline.applyPerTile(filters, i, end, writeTiles, editor.width(), editor.height(), 1, editor.width(), editor.height(), true, false);
+            }else{
+                input.begin(editor.width(), editor.height(), editor::tile);
+
+                //write to buffer
+                for(int x = 0; x < editor.width(); x++){
+                    for(int y = 0; y < editor.height(); y++){
+                        Tile tile = editor.tile(x, y);
+                        input.set(x, y, tile.block(), tile.floor(), tile.overlay());
+                        filter.apply(input);
+                        writeTiles[x + y*world.width()] = PackTile.get(input.block.id, input.floor.id, input.overlay.id);
+                    }
                 }
             }
 
             editor.load(() -> {
                 //read from buffer back into tiles
-                for(int i = 0; i < editor.width() * editor.height(); i++){
-                    Tile tile = world.tiles.geti(i);
-                    long write = writeTiles[i];
+                for(int j = 0; j < editor.width() * editor.height(); j++){
+                    Tile tile = world.tiles.geti(j);
+                    long write = writeTiles[j];
 
                     Block block = content.block(PackTile.block(write)), floor = content.block(PackTile.floor(write)), overlay = content.block(PackTile.overlay(write));
 
@@ -182,6 +197,8 @@ public class MapGenerateDialog extends BaseDialog{
                     tile.setOverlay(overlay);
                 }
             });
+
+            i = end;
         }
 
         //reset undo stack as generation... messes things up
@@ -424,7 +441,17 @@ public class MapGenerateDialog extends BaseDialog{
                     }
                 }
 
-                for(var filter : copy){
+                for(int i = 0; i < copy.size; i++){
+                    var filter = copy.get(i);
+
+                    if(filter.isPerTile()){
+                        //runs of per-tile filters are applied to buffer1 in a single pass
+                        int end = FilterPipeline.perTileRun(copy, i);
+                        FilterPipeline.applyPerTile(copy, i, end, buffer1, w, pixmap.height, scaling, editor.width(), editor.height(), false, false);
+                        i = end - 1;
+                        continue;
+                    }
+
                     input.begin(editor.width(), editor.height(), (x, y) -> unpack(buffer1[Mathf.clamp(x / scaling, 0, pixmap.width -1) + w* Mathf.clamp(y / scaling, 0, pixmap.height -1)]));
 
                     //read from buffer1 and write to buffer2
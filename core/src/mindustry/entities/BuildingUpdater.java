@@ -0,0 +1,131 @@
+package mindustry.entities;
+
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.async.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+
+import java.util.concurrent.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Updates buildings of thread-safe blocks (see {@link mindustry.world.Block#threadSafe}) on multiple threads.
+ * The map is split into square regions, which are colored in a 2x2 pattern. Regions of the same color are never adjacent,
+ * so all regions of one color can be updated at the same time. Colors are updated one after another, and buildings inside a region
+ * are updated in group order, which keeps results independent of thread timing.
+ */
+public class BuildingUpdater{
+    /** Size of an update region, in tiles. Thread-safe blocks must not interact with anything further than half of this away. */
+    public static final int regionSize = 32;
+
+    /** Whether buildings are currently being queued instead of updated. */
+    public boolean collecting;
+    /** Whether buildings are currently being updated from multiple threads. Group changes are deferred while this is true. */
+    public volatile boolean parallel;
+    /** Amount of buildings updated in parallel in the last frame. */
+    public int lastCount;
+    /** Time taken by the parallel update in the last frame, in nanoseconds. */
+    public long lastTime;
+
+    private final Phase[] phases = {new Phase(), new Phase(), new Phase(), new Phase()};
+    private final ConcurrentLinkedQueue<Building> deferred = new ConcurrentLinkedQueue<>();
+    private Seq<Building>[] regions = new Seq[0];
+    private int regionsX, regionsY, count;
+
+    /** Called before entities are updated. */
+    public void begin(){
+        collecting = headless && OS.cores > 1 && Config.parallelBuildings.bool() && !state.isEditor();
+        if(!collecting) return;
+
+        int rx = Mathf.ceil(world.width() / (float)regionSize), ry = Mathf.ceil(world.height() / (float)regionSize);
+        if(rx != regionsX || ry != regionsY){
+            regionsX = rx;
+            regionsY = ry;
+            regions = new Seq[rx * ry];
+            for(int i = 0; i < regions.length; i++){
+                regions[i] = new Seq<>(false, 16, Building.class);
+            }
+        }
+    }
+
+    /**
+     * Queues a building for a parallel update. Buildings that are next to a building of a block that is not thread-safe are rejected.
+     * @return whether the building was queued, in which case it should not update now.
+     */
+    public boolean queue(Building build){
+        if(build.tile == null) return false;
+
+        var prox = build.proximity;
+        for(int i = 0; i < prox.size; i++){
+            if(!prox.get(i).block.threadSafe) return false;
+        }
+
+        int rx = build.tile.x / regionSize, ry = build.tile.y / regionSize;
+        if(rx >= regionsX || ry >= regionsY) return false;
+
+        int index = rx + ry * regionsX;
+        var region = regions[index];
+        if(region.isEmpty()){
+            phases[(rx & 1) + (ry & 1) * 2].regions.add(index);
+        }
+        region.add(build);
+        count ++;
+        return true;
+    }
+
+    /** Defers adding/removing a building from its groups until the parallel update is done. A building may be deferred several times; see {@link Building#applySleep()}. */
+    public void defer(Building build){
+        deferred.add(build);
+    }
+
+    /** Updates all queued buildings. Called after entities are updated. */
+    public void update(){
+        collecting = false;
+        lastCount = count;
+        if(count == 0) return;
+
+        long start = Time.nanos();
+
+        parallel = true;
+        try{
+            for(Phase phase : phases){
+                phase.run();
+            }
+        }finally{
+            parallel = false;
+
+            //apply group changes from buildings that fell asleep or woke up
+            Building build;
+            while((build = deferred.poll()) != null){
+                build.applySleep();
+            }
+
+            for(Phase phase : phases){
+                for(int i = 0; i < phase.regions.size; i++){
+                    regions[phase.regions.items[i]].clear();
+                }
+                phase.regions.clear();
+            }
+            count = 0;
+        }
+
+        lastTime = Time.timeSinceNanos(start);
+    }
+
+    /** All regions of a single color. */
+    private class Phase{
+        final IntSeq regions = new IntSeq();
+
+        void run(){
+            Parallel.forEach(regions.size, i -> {
+                var region = BuildingUpdater.this.regions[regions.items[i]];
+                for(int j = 0; j < region.size; j++){
+                    region.items[j].updateBuild();
+                }
+            });
+        }
+    }
+}
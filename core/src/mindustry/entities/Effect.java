@@ -42,6 +42,8 @@ public class Effect{
 
     public float layer = Layer.effect;
     public float layerDuration;
+    /** If true, the data of this effect is owned by it, and returned to {@link EntityPools} when the effect ends. */
+    public boolean poolData;
 
     public Effect(float life, float clipsize, Cons<EffectContainer> renderer){
         this.id = all.size;
@@ -78,6 +80,11 @@ public class Effect{
         return this;
     }
 
+    public Effect poolData(boolean pool){
+        poolData = pool;
+        return this;
+    }
+
     public Effect layer(float l){
         layer = l;
         return this;
@@ -117,6 +117,19 @@ public class EntityCollisions{
 
     @SuppressWarnings("unchecked")
     public <T extends Hitboxc> void updatePhysics(EntityGroup<T> group){
+        var grid = group.grid();
+        if(grid != null){
+            grid.clear();
+
+            group.each(s -> {
+                s.updateLastPosition();
+                grid.insert(s, s instanceof Teamc t ? t.team().id : 0);
+            });
+
+            grid.build();
+            return;
+        }
+
         var tree = group.tree();
         tree.clear();
 
@@ -228,7 +241,13 @@ public class EntityCollisions{
         arrOut.clear();
 
         //get all targets based on what entity wants to collide with
-        solid.getCollisions(treeCons);
+        var grid = Groups.unit.grid();
+        if(grid != null && solid instanceof Bulletc b){
+            //bullets collide with units of all other teams
+            grid.intersect(r2, b.team().id, false, arrOut);
+        }else{
+            solid.getCollisions(treeCons);
+        }
 
         var items = arrOut.items;
         int size = arrOut.size;
@@ -23,6 +23,7 @@ public class EntityGroup<T extends Entityc> implements Iterable<T>{
     private final EntityIndexer indexer;
     private IntMap<T> map;
     private QuadTree tree;
+    private @Nullable SpatialGrid grid;
     private boolean clearing;
 
     private int index;
@@ -143,33 +144,66 @@ public class EntityGroup<T extends Entityc> implements Iterable<T>{
     public void intersect(float x, float y, float width, float height, Cons<? super T> out){
         //don't waste time for empty groups
         if(isEmpty()) return;
-        tree.intersect(x, y, width, height, out);
+        if(grid != null){
+            grid.intersect(x, y, width, height, out);
+        }else{
+            tree.intersect(x, y, width, height, out);
+        }
     }
 
     public boolean intersect(float x, float y, float width, float height, Boolf<? super T> out){
         //don't waste time for empty groups
         if(isEmpty()) return false;
-        return tree.intersect(x, y, width, height, out);
+        return grid != null ? grid.intersect(x, y, width, height, out) : tree.intersect(x, y, width, height, out);
     }
 
     public Seq<T> intersect(float x, float y, float width, float height){
         intersectArray.clear();
         //don't waste time for empty groups
         if(isEmpty()) return intersectArray;
-        tree.intersect(intersectRect.set(x, y, width, height), intersectArray);
+        if(grid != null){
+            grid.intersect(intersectRect.set(x, y, width, height), intersectArray);
+        }else{
+            tree.intersect(intersectRect.set(x, y, width, height), intersectArray);
+        }
         return intersectArray;
     }
 
+    /**
+     * Switches spatial queries of this group between the quadtree and a {@link SpatialGrid}. Only works for spatial groups.
+     * Entities in the grid are tagged with their team ID, if they have one.
+     * @param cellSize the size of a grid cell in world units, or a value <= 0 to go back to using the quadtree.
+     */
+    public void useGrid(float cellSize){
+        if(tree == null) throw new RuntimeException("This group does not support spatial queries! Enable them when creating it.");
+
+        if(cellSize <= 0f){
+            grid = null;
+        }else{
+            grid = new SpatialGrid<>(cellSize);
+            grid.resize(tree.bounds.x, tree.bounds.y, tree.bounds.width, tree.bounds.height);
+        }
+    }
+
+    /** @return the spatial grid used for queries, or null if this group uses a quadtree. */
+    public @Nullable SpatialGrid grid(){
+        return grid;
+    }
+
     public QuadTree tree(){
         if(tree == null) throw new RuntimeException("This group does not support quadtrees! Enable quadtrees when creating it.");
         return tree;
     }
 
-    /** Resizes the internal quadtree, if it is enabled.*/
+    /** Resizes the internal quadtree and grid, if they are enabled.*/
     public void resize(float x, float y, float w, float h){
         if(tree != null){
             tree = new QuadTree<>(new Rect(x, y, w, h));
         }
+
+        if(grid != null){
+            grid.resize(x, y, w, h);
+        }
     }
 
     public boolean isEmpty(){
@@ -0,0 +1,66 @@
+package mindustry.entities;
+
+import arc.func.*;
+import arc.struct.*;
+import arc.util.pooling.*;
+
+/**
+ * Pools for objects that are created and discarded at a high rate: pooled entities (see the {@code pooled} option of entity definitions),
+ * status entries and trails. Counts how often objects are reused instead of allocated, which the server status command displays.
+ * Like {@link Pools}, this is not thread-safe.
+ */
+@SuppressWarnings("unchecked")
+public class EntityPools{
+    /** Maximum amount of free objects kept for each type. Pools created afterwards use the new value. */
+    public static int maxFree = 4096;
+
+    private static final ObjectMap<Class<?>, TypePool<?>> pools = new ObjectMap<>();
+    /** All pools, in the order they were first used. */
+    public static final Seq<TypePool<?>> all = new Seq<>();
+
+    /** @return a free object of this type, or a new one if there are none. */
+    public static <T> T obtain(Class<T> type, Prov<T> supplier){
+        TypePool<T> pool = (TypePool<T>)pools.get(type);
+        if(pool == null){
+            pools.put(type, pool = new TypePool<>(type, supplier));
+            all.add(pool);
+        }
+
+        pool.obtained ++;
+        return pool.obtain();
+    }
+
+    /** Returns an object to its pool, resetting it if it is {@link Poolable}. Objects of types that were never obtained from here are ignored. */
+    public static void free(Object object){
+        TypePool pool = pools.get(object.getClass());
+        if(pool != null){
+            pool.freed ++;
+            pool.free(object);
+        }
+    }
+
+    public static class TypePool<T> extends Pool<T>{
+        public final Class<T> type;
+        /** Amount of objects obtained and freed, and how many of the obtained objects had to be allocated. */
+        public long obtained, freed, allocated;
+
+        private final Prov<T> supplier;
+
+        TypePool(Class<T> type, Prov<T> supplier){
+            super(16, maxFree);
+            this.type = type;
+            this.supplier = supplier;
+        }
+
+        /** @return the percentage of obtained objects that were reused. */
+        public int reusePercent(){
+            return obtained == 0 ? 0 : (int)((obtained - allocated) * 100 / obtained);
+        }
+
+        @Override
+        protected T newObject(){
+            allocated ++;
+            return supplier.get();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package mindustry.entities;
+
+import arc.*;
+import arc.math.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Resolves building damage from explosions; see {@link Damage#tileDamage}. All explosions queued in a frame are resolved at the start of the next one,
+ * one after another, and each of them damages buildings the same way a separate explosion would. Rays are traced along precomputed templates, which only depend on the radius.
+ * <p>
+ * Each frame is limited to {@link #maxStepsPerFrame} ray steps. Explosions that do not fit are resolved in the following frames.
+ * Pending explosions are dropped when the world is reset or another one is loaded.
+ */
+public class ExplosionResolver{
+    /** Maximum amount of ray steps traced per frame. At least one explosion is always resolved. */
+    public static int maxStepsPerFrame = 200_000;
+    /** Radius cap, in tiles. Larger explosions are resolved with this radius. */
+    public static final float maxRadius = 100f;
+    /** Damage multiplier at the edge of the explosion circle, relative to the center. */
+    private static final float edgeScale = 0.6f;
+
+    private static final Queue<Explosion> queue = new Queue<>();
+    private static final Seq<Explosion> freeExplosions = new Seq<>();
+    private static final IntMap<RayTemplate> templates = new IntMap<>();
+    private static final IntFloatMap damages = new IntFloatMap();
+
+    private static boolean posted;
+
+    static{
+        Events.on(ResetEvent.class, e -> clear());
+        Events.on(WorldLoadEvent.class, e -> clear());
+    }
+
+    /** Amount of explosions waiting to be resolved. */
+    public static int pending(){
+        return queue.size;
+    }
+
+    /** Queues an explosion. It is resolved at the start of the next frame, unless the budget of that frame has been used up. */
+    public static void queue(@Nullable Team team, int x, int y, float radius, float damage, @Nullable Bullet source){
+        Explosion e = freeExplosions.isEmpty() ? new Explosion() : freeExplosions.pop();
+        e.team = team;
+        e.x = x;
+        e.y = y;
+        e.radius = radius;
+        e.damage = damage;
+        e.source = source;
+        e.sourceId = source == null ? -1 : source.id;
+        queue.addLast(e);
+
+        if(!posted){
+            posted = true;
+            Core.app.post(ExplosionResolver::resolve);
+        }
+    }
+
+    /** Drops all pending explosions. */
+    public static void clear(){
+        while(!queue.isEmpty()){
+            free(queue.removeFirst());
+        }
+    }
+
+    private static void resolve(){
+        posted = false;
+        int steps = 0;
+
+        while(!queue.isEmpty() && (steps == 0 || steps < maxStepsPerFrame)){
+            Explosion e = queue.removeFirst();
+            steps += resolve(e);
+            free(e);
+        }
+
+        //buildings destroyed above may have queued new explosions already
+        if(!queue.isEmpty() && !posted){
+            posted = true;
+            Core.app.post(ExplosionResolver::resolve);
+        }
+    }
+
+    /** Traces the rays of an explosion and damages the buildings it hits. @return the amount of ray steps taken. */
+    private static int resolve(Explosion e){
+        Team team = e.team;
+        int x = e.x, y = e.y;
+        float damage = e.damage;
+
+        //bullets are pooled; one that was removed and reused since the explosion was queued is no longer its source
+        Bullet source = e.source != null && e.source.id == e.sourceId ? e.source : null;
+
+        var in = world.build(x, y);
+        //spawned inside a multiblock. this means that damage needs to be dealt directly.
+        //why? because otherwise the building would absorb everything in one cell, which means much less damage than a nearby explosion.
+        //this needs to be compensated
+        if(in != null && in.team != team && in.block.size > 1 && in.health > damage){
+            //deal the damage of an entire side, to be equivalent with maximum 'standard' damage
+            in.damage(team, damage * Math.min((in.block.size), e.radius * 0.4f));
+            //no need to continue with the explosion
+            return 1;
+        }
+
+        RayTemplate template = template(Math.min(e.radius, maxRadius));
+        int[] dx = template.dx, dy = template.dy, rayStart = template.rayStart;
+        float[] mult = template.mult;
+        damages.clear();
+
+        int steps = 0;
+        for(int ray = 0; ray < template.rays; ray++){
+            float dealt = 0f;
+            int end = rayStart[ray + 1];
+
+            for(int i = rayStart[ray]; i < end; i++){
+                steps ++;
+                int tx = x + dx[i], ty = y + dy[i];
+                var build = world.build(tx, ty);
+                if(build != null && build.team != team){
+                    float next = damage * mult[i] - dealt;
+                    //register damage dealt
+                    int p = Point2.pack(tx, ty);
+                    damages.put(p, Math.max(damages.get(p), next));
+                    //register as hit
+                    dealt += build.health;
+
+                    if(next - dealt <= 0){
+                        break;
+                    }
+                }
+            }
+        }
+
+        //apply damage; multiblocks are hit once for each of their tiles
+        for(var entry : damages){
+            var build = world.build(entry.key);
+            if(build != null){
+                if(source != null){
+                    build.damage(source, team, entry.value);
+                }else{
+                    build.damage(team, entry.value);
+                }
+            }
+        }
+
+        return steps;
+    }
+
+    private static RayTemplate template(float radius){
+        int key = Float.floatToIntBits(radius);
+        RayTemplate template = templates.get(key);
+        if(template == null){
+            //radii usually come from a small set of bullet types; this only guards against unbounded growth
+            if(templates.size >= 256) templates.clear();
+            templates.put(key, template = new RayTemplate(radius));
+        }
+        return template;
+    }
+
+    private static void free(Explosion e){
+        e.team = null;
+        e.source = null;
+        freeExplosions.add(e);
+    }
+
+    static class Explosion{
+        @Nullable Team team;
+        @Nullable Bullet source;
+        int sourceId;
+        int x, y;
+        float radius, damage;
+    }
+
+    /** Offsets of every tile along every ray of an explosion, relative to its center. Rays are traced with Bresenham's algorithm. */
+    static class RayTemplate{
+        final int rays;
+        /** Ray i spans indices [rayStart[i], rayStart[i + 1]). */
+        final int[] rayStart;
+        final int[] dx, dy;
+        /** Damage multiplier of each tile. */
+        final float[] mult;
+
+        RayTemplate(float radius){
+            float rad2 = radius * radius;
+            int count = Mathf.ceil(radius * 2 * Mathf.pi);
+            double spacing = Math.PI * 2.0 / count;
+
+            rays = count + 1;
+            rayStart = new int[rays + 1];
+            IntSeq xs = new IntSeq(), ys = new IntSeq();
+
+            for(int i = 0; i < rays; i++){
+                rayStart[i] = xs.size;
+
+                int startX = 0, startY = 0;
+                int endX = (int)(Math.cos(spacing * i) * radius), endY = (int)(Math.sin(spacing * i) * radius);
+
+                int xDist = Math.abs(endX - startX);
+                int yDist = -Math.abs(endY - startY);
+                int xStep = (startX < endX ? +1 : -1);
+                int yStep = (startY < endY ? +1 : -1);
+                int error = xDist + yDist;
+
+                while(startX != endX || startY != endY){
+                    xs.add(startX);
+                    ys.add(startY);
+
+                    if(2 * error - yDist > xDist - 2 * error){
+                        error += yDist;
+                        startX += xStep;
+                    }else{
+                        error += xDist;
+                        startY += yStep;
+                    }
+                }
+            }
+            rayStart[rays] = xs.size;
+
+            dx = xs.toArray();
+            dy = ys.toArray();
+            mult = new float[dx.length];
+            for(int i = 0; i < mult.length; i++){
+                //damage dealt at circle edge
+                mult[i] = (1f - (Mathf.dst2(dx[i], dy[i], 0, 0) / rad2) + edgeScale) / (1f + edgeScale);
+            }
+        }
+    }
+}
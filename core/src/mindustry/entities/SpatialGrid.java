@@ -0,0 +1,204 @@
+package mindustry.entities;
+
+import arc.func.*;
+import arc.math.*;
+import arc.math.geom.*;
+import arc.math.geom.QuadTree.*;
+import arc.struct.*;
+
+import java.util.*;
+
+/**
+ * A flat, array-backed alternative to {@link QuadTree}. Objects are bucketed by the cell of their hitbox center, and each bucket
+ * is a contiguous range of the sorted arrays, so a query only walks one range per row of cells.
+ * Every object has an integer tag (usually a team ID), which can be used to filter queries without touching the objects themselves.
+ * The grid is rebuilt from scratch with a counting sort after all objects are inserted; see {@link #build()}.
+ */
+@SuppressWarnings("unchecked")
+public class SpatialGrid<T extends QuadTreeObject>{
+    /** Size of a grid cell, in world units. */
+    public final float cellSize;
+
+    private float x, y;
+    private int width = 1, height = 1, size;
+    private float maxWidth, maxHeight;
+
+    //unsorted input, filled by insert()
+    private Object[] items = new Object[16];
+    private int[] tags = new int[16], cells = new int[16];
+    private float[] bounds = new float[16 * 4];
+
+    //input sorted by cell
+    private Object[] sorted = new Object[16];
+    private int[] sortedTags = new int[16];
+    private float[] sortedBounds = new float[16 * 4];
+    //start index of each cell in the sorted arrays; cell i spans [cellStart[i], cellStart[i + 1])
+    private int[] cellStart = new int[2], cursor = new int[2];
+
+    private final Rect rect = new Rect();
+
+    //targets for the adapters below; saved and restored around each query, so nested queries are safe
+    private Cons<? super T> consTarget;
+    private Seq<? super T> seqTarget;
+    private final Boolf<T> consAdapter = t -> {
+        consTarget.get(t);
+        return false;
+    }, seqAdapter = t -> {
+        seqTarget.add(t);
+        return false;
+    };
+
+    public SpatialGrid(float cellSize){
+        this.cellSize = cellSize;
+    }
+
+    /** Sets the bounds of the grid. Objects outside of the bounds are placed in the edge cells. */
+    public void resize(float x, float y, float width, float height){
+        this.x = x;
+        this.y = y;
+        this.width = Math.max(Mathf.ceil(width / cellSize), 1);
+        this.height = Math.max(Mathf.ceil(height / cellSize), 1);
+        cellStart = new int[this.width * this.height + 1];
+        cursor = new int[cellStart.length];
+        clear();
+    }
+
+    /** Removes all objects. */
+    public void clear(){
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(sorted, 0, size, null);
+        Arrays.fill(cellStart, 0);
+        size = 0;
+        maxWidth = maxHeight = 0f;
+    }
+
+    /** Adds an object. It will not be visible to queries until {@link #build()} is called. */
+    public void insert(T obj, int tag){
+        if(size >= items.length){
+            int cap = size * 7 / 4;
+            items = Arrays.copyOf(items, cap);
+            sorted = Arrays.copyOf(sorted, cap);
+            tags = Arrays.copyOf(tags, cap);
+            sortedTags = Arrays.copyOf(sortedTags, cap);
+            cells = Arrays.copyOf(cells, cap);
+            bounds = Arrays.copyOf(bounds, cap * 4);
+            sortedBounds = Arrays.copyOf(sortedBounds, cap * 4);
+        }
+
+        obj.hitbox(rect);
+
+        int i = size++, b = i * 4;
+        items[i] = obj;
+        tags[i] = tag;
+        cells[i] = cellX(rect.x + rect.width / 2f) + cellY(rect.y + rect.height / 2f) * width;
+        bounds[b] = rect.x;
+        bounds[b + 1] = rect.y;
+        bounds[b + 2] = rect.x + rect.width;
+        bounds[b + 3] = rect.y + rect.height;
+        maxWidth = Math.max(maxWidth, rect.width);
+        maxHeight = Math.max(maxHeight, rect.height);
+    }
+
+    /** Sorts all inserted objects into their cells. Must be called after inserting and before querying. */
+    public void build(){
+        int[] start = cellStart;
+        Arrays.fill(start, 0);
+
+        for(int i = 0; i < size; i++){
+            start[cells[i] + 1] ++;
+        }
+
+        for(int i = 1; i < start.length; i++){
+            start[i] += start[i - 1];
+        }
+
+        System.arraycopy(start, 0, cursor, 0, start.length);
+
+        for(int i = 0; i < size; i++){
+            int dst = cursor[cells[i]]++;
+            sorted[dst] = items[i];
+            sortedTags[dst] = tags[i];
+            System.arraycopy(bounds, i * 4, sortedBounds, dst * 4, 4);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public void intersect(float x, float y, float width, float height, Cons<? super T> out){
+        intersect(x, y, width, height, -1, true, out);
+    }
+
+    /**
+     * Iterates over all objects whose hitbox overlaps this rectangle.
+     * @param tag the tag to filter by, or -1 to accept everything.
+     * @param same if true, only objects with this tag are accepted; otherwise, only objects with a different tag are accepted.
+     */
+    public void intersect(float x, float y, float width, float height, int tag, boolean same, Cons<? super T> out){
+        var last = consTarget;
+        consTarget = out;
+        query(x, y, width, height, tag, same, consAdapter);
+        consTarget = last;
+    }
+
+    public void intersect(Rect rect, Seq<? super T> out){
+        intersect(rect, -1, true, out);
+    }
+
+    public void intersect(Rect rect, int tag, boolean same, Seq<? super T> out){
+        var last = seqTarget;
+        seqTarget = out;
+        query(rect.x, rect.y, rect.width, rect.height, tag, same, seqAdapter);
+        seqTarget = last;
+    }
+
+    /** Iterates over objects overlapping this rectangle until the callback returns true. @return whether the callback returned true. */
+    public boolean intersect(float x, float y, float width, float height, Boolf<? super T> out){
+        return query(x, y, width, height, -1, true, out);
+    }
+
+    /** @return whether any object overlaps this rectangle. */
+    public boolean any(float x, float y, float width, float height, int tag, boolean same){
+        return query(x, y, width, height, tag, same, t -> true);
+    }
+
+    /** @return whether the callback returned true for any object. */
+    public boolean query(float qx, float qy, float qw, float qh, int tag, boolean same, Boolf<? super T> out){
+        if(size == 0) return false;
+
+        //objects are bucketed by their center, so the query must be expanded by the largest half-size
+        int x1 = cellX(qx - maxWidth / 2f), x2 = cellX(qx + qw + maxWidth / 2f);
+        int y1 = cellY(qy - maxHeight / 2f), y2 = cellY(qy + qh + maxHeight / 2f);
+        float qx2 = qx + qw, qy2 = qy + qh;
+
+        int[] start = cellStart;
+        int[] tags = sortedTags;
+        float[] bounds = sortedBounds;
+        Object[] items = sorted;
+
+        for(int cy = y1; cy <= y2; cy++){
+            //cells in a row are contiguous
+            int from = start[x1 + cy * width], to = start[x2 + cy * width + 1];
+
+            for(int i = from; i < to; i++){
+                if(tag >= 0 && (tags[i] == tag) != same) continue;
+
+                int b = i * 4;
+                if(bounds[b] < qx2 && bounds[b + 2] > qx && bounds[b + 1] < qy2 && bounds[b + 3] > qy && out.get((T)items[i])){
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private int cellX(float wx){
+        return Mathf.clamp((int)((wx - x) / cellSize), 0, width - 1);
+    }
+
+    private int cellY(float wy){
+        return Mathf.clamp((int)((wy - y) / cellSize), 0, height - 1);
+    }
+}
@@ -0,0 +1,110 @@
+package mindustry.entities;
+
+import arc.func.*;
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.entities.Units.*;
+import mindustry.game.*;
+import mindustry.gen.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Shares enemy unit lookups between turrets. Turrets are grouped into buckets by team, map cell and range; the first turret of a bucket
+ * that looks for a target in a frame collects all enemies in range of the whole bucket, and every other turret of that bucket only checks those units.
+ * Results are the same as with {@link Units#bestEnemy}: units are collected from the same trees and in the same order, so ties are broken the same way.
+ */
+public class TargetCache{
+    /** Size of a bucket's map cell, and the step between range classes, in world units. */
+    public static final float cellSize = tilesize * 8f, rangeStep = tilesize * 8f;
+
+    private static final LongMap<Bucket> buckets = new LongMap<>();
+    private static final Seq<Bucket> freeBuckets = new Seq<>();
+    private static long lastUpdate = -1;
+
+    private static Bucket filling;
+    private static final Cons<Unit> collector = u -> {
+        if(u.team != Team.derelict) filling.add(u);
+    };
+
+    /** Returns the closest target enemy. First, units are checked, then buildings. See {@link Units#bestTarget}. */
+    public static @Nullable Teamc bestTarget(Team team, float x, float y, float range, Boolf<Unit> unitPred, Boolf<Building> tilePred, Sortf sort){
+        if(team == Team.derelict) return null;
+
+        Unit unit = bestEnemy(team, x, y, range, unitPred, sort);
+        if(unit != null){
+            return unit;
+        }else{
+            return Units.findEnemyTile(team, x, y, range, true, tilePred);
+        }
+    }
+
+    /** Returns the closest enemy of this team using a custom comparison function. Filter by predicate. See {@link Units#bestEnemy}. */
+    public static @Nullable Unit bestEnemy(Team team, float x, float y, float range, Boolf<Unit> predicate, Sortf sort){
+        if(team == Team.derelict) return null;
+
+        Bucket bucket = bucket(team, x, y, range);
+        Unit result = null;
+        float cdist = 0f, cpriority = -99999f;
+
+        for(int i = 0; i < bucket.size; i++){
+            Unit e = bucket.units[i];
+            if(e.dead() || !predicate.get(e) || !e.within(x, y, range + e.hitSize/2f) || !e.targetable(team) || e.inFogTo(team)) continue;
+
+            float cost = sort.cost(e, x, y);
+            if((result == null || cost < cdist || e.type.targetPriority > cpriority) && e.type.targetPriority >= cpriority){
+                result = e;
+                cdist = cost;
+                cpriority = e.type.targetPriority;
+            }
+        }
+
+        return result;
+    }
+
+    private static Bucket bucket(Team team, float x, float y, float range){
+        //buckets are only valid for the frame they were collected in
+        if(lastUpdate != state.updateId){
+            lastUpdate = state.updateId;
+            for(var bucket : buckets.values()){
+                bucket.clear();
+                freeBuckets.add(bucket);
+            }
+            buckets.clear();
+        }
+
+        int cx = Math.max((int)(x / cellSize), 0), cy = Math.max((int)(y / cellSize), 0), rangeClass = Mathf.ceil(range / rangeStep);
+        long key = ((long)team.id << 56) | ((long)rangeClass << 40) | ((long)cx << 20) | cy;
+
+        Bucket bucket = buckets.get(key);
+        if(bucket == null){
+            bucket = freeBuckets.isEmpty() ? new Bucket() : freeBuckets.pop();
+            buckets.put(key, bucket);
+
+            //covers the query rectangle of every turret in this cell with a range in this class
+            float bucketRange = rangeClass * rangeStep;
+            filling = bucket;
+            Units.nearbyEnemies(team, cx * cellSize - bucketRange, cy * cellSize - bucketRange, cellSize + bucketRange * 2f, cellSize + bucketRange * 2f, collector);
+            filling = null;
+        }
+        return bucket;
+    }
+
+    static class Bucket{
+        Unit[] units = new Unit[16];
+        int size;
+
+        void add(Unit unit){
+            if(size >= units.length) units = Arrays.copyOf(units, size * 2);
+            units[size++] = unit;
+        }
+
+        void clear(){
+            Arrays.fill(units, 0, size, null);
+            size = 0;
+        }
+    }
+}
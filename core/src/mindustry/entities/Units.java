@@ -409,7 +409,10 @@ public class Units{
 
     /** Iterates over all units in a rectangle. */
     public static void nearby(@Nullable Team team, float x, float y, float width, float height, Cons<Unit> cons){
-        if(team != null){
+        var grid = Groups.unit.grid();
+        if(grid != null){
+            grid.intersect(x, y, width, height, team == null ? -1 : team.id, true, cons);
+        }else if(team != null){
             team.data().tree().intersect(x, y, width, height, cons);
         }else{
             for(var other : state.teams.present){
@@ -418,6 +421,11 @@ public class Units{
         }
     }
 
+    /** Iterates over all units in a rectangle. */
+    public static void nearby(@Nullable Team team, Rect rect, Cons<Unit> cons){
+        nearby(team, rect.x, rect.y, rect.width, rect.height, cons);
+    }
+
     /** Iterates over all units in a circle around this position. */
     public static void nearby(@Nullable Team team, float x, float y, float radius, Cons<Unit> cons){
         nearby(team, x - radius, y - radius, radius*2f, radius*2f, unit -> {
@@ -447,6 +455,12 @@ public class Units{
 
     /** Iterates over all units that are enemies of this team. */
     public static void nearbyEnemies(Team team, float x, float y, float width, float height, Cons<Unit> cons){
+        var grid = Groups.unit.grid();
+        if(grid != null){
+            grid.intersect(x, y, width, height, team.id, false, cons);
+            return;
+        }
+
         Seq<TeamData> data = state.teams.present;
         for(int i = 0; i < data.size; i++){
             if(data.items[i].team != team){
@@ -471,11 +485,16 @@ public class Units{
 
     /** @return whether there is an enemy in this rectangle. */
     public static boolean nearEnemy(Team team, float x, float y, float width, float height){
+        var grid = Groups.unit.grid();
+        if(grid != null && grid.any(x, y, width, height, team.id, false)){
+            return true;
+        }
+
         Seq<TeamData> data = state.teams.present;
         for(int i = 0; i < data.size; i++){
             var other = data.items[i];
             if(other.team != team){
-                if(other.tree().any(x, y, width, height)){
+                if(grid == null && other.tree().any(x, y, width, height)){
                     return true;
                 }
                 if(other.turretTree != null && other.turretTree.any(x, y, width, height)){
@@ -558,8 +558,14 @@ public class BulletType extends Content implements Cloneable{
 
     /** Called when the bullet is removed for any reason. */
     public void removed(Bullet b){
-        if(trailLength > 0 && b.trail != null && b.trail.size() > 0){
-            Fx.trailFade.at(b.x, b.y, trailWidth, trailColor, b.trail.copy());
+        if(b.trail != null){
+            if(trailLength > 0 && b.trail.size() > 0){
+                //the fade effect takes over the trail, and frees it when it ends
+                Fx.bulletTrailFade.at(b.x, b.y, trailWidth, trailColor, b.trail);
+            }else{
+                EntityPools.free(b.trail);
+            }
+            b.trail = null;
         }
     }
 
@@ -679,7 +685,7 @@ public class BulletType extends Content implements Cloneable{
     public void updateTrail(Bullet b){
         if(!headless && trailLength > 0){
             if(b.trail == null){
-                b.trail = new Trail(trailLength);
+                b.trail = Trail.obtain(trailLength);
             }
             b.trail.length = trailLength;
             b.trail.update(b.x, b.y, trailInterp.apply(b.fin()) * (1f + (trailSinMag > 0 ? Mathf.absin(Time.time, trailSinScl, trailSinMag) : 0f)));
@@ -111,7 +111,7 @@ public class PointLaserBulletType extends BulletType{
     public void updateTrail(Bullet b){
         if(!headless && trailLength > 0){
             if(b.trail == null){
-                b.trail = new Trail(trailLength);
+                b.trail = Trail.obtain(trailLength);
             }
             b.trail.length = trailLength;
             b.trail.update(b.aimX, b.aimY, b.fslope() * (1f - (trailSinMag > 0 ? Mathf.absin(Time.time, trailSinScl, trailSinMag) : 0f)));
@@ -102,6 +102,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     private transient @Nullable SoundLoop sound;
 
     private transient boolean sleeping;
+    /** Whether this building is currently removed from its groups because it is sleeping. */
+    private transient boolean sleepApplied;
     private transient float sleepTime;
     private transient boolean initialized;
 
@@ -609,9 +611,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public void sleep(){
         sleepTime += Time.delta;
         if(!sleeping && sleepTime >= timeToSleep){
-            remove();
             sleeping = true;
-            sleepingEntities++;
+            applySleep();
         }
     }
 
@@ -619,8 +620,33 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public void noSleep(){
         sleepTime = 0f;
         if(sleeping){
-            add();
             sleeping = false;
+            applySleep();
+        }
+    }
+
+    /** @return whether this building is sleeping, i.e. removed from its groups and not updated until something wakes it up. */
+    public boolean isSleeping(){
+        return sleeping;
+    }
+
+    /** Removes this entity from its groups if it is sleeping, or adds it back if it is not. */
+    public void applySleep(){
+        //group changes are not thread-safe; apply them after the parallel update instead
+        if(buildingUpdater.parallel){
+            buildingUpdater.defer(self());
+            return;
+        }
+
+        //a deferred sleep and wake may cancel out; only change groups when membership actually differs
+        if(sleepApplied == sleeping) return;
+        sleepApplied = sleeping;
+
+        if(sleeping){
+            remove();
+            sleepingEntities++;
+        }else{
+            add();
             sleepingEntities--;
         }
     }
@@ -810,6 +836,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     }
 
     public void handleItem(Building source, Item item){
+        noSleep();
         items.add(item, 1);
     }
 
@@ -1312,6 +1339,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
     /** Called when arbitrary configuration is applied to a tile. */
     public void configured(@Nullable Unit builder, @Nullable Object value){
+        noSleep();
+
         //null is of type void.class; anonymous classes use their superclass.
         Class<?> type = value == null ? void.class : value.getClass().isAnonymousClass() ? value.getClass().getSuperclass() : value.getClass();
 
@@ -1898,6 +1927,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public void damage(float damage){
         if(dead()) return;
 
+        noSleep();
+
         float dm = state.rules.blockHealth(team);
         lastDamageTime = Time.time;
 
@@ -2100,6 +2131,14 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         //TODO should just avoid updating buildings instead
         if(state.isEditor()) return;
 
+        //thread-safe buildings are updated later, in parallel
+        if(buildingUpdater.collecting && block.threadSafe && buildingUpdater.queue(self())) return;
+
+        updateBuild();
+    }
+
+    /** Updates this building, without queueing it for a parallel update. Unlike {@link #update()}, this never runs code of other components. */
+    public void updateBuild(){
         //TODO refactor to timestamp-based system?
         if((timeScaleDuration -= Time.delta) <= 0f || !block.canOverdrive){
             timeScale = 1f;
@@ -20,6 +20,14 @@ abstract class EffectStateComp implements Posc, Drawc, Timedc, Rotc, Childc{
         lifetime = effect.render(id, color, time, lifetime, rotation, x, y, data);
     }
 
+    @Override
+    public void remove(){
+        //data owned by the effect (e.g. faded trails) can be reused
+        if(effect != null && effect.poolData && data != null){
+            EntityPools.free(data);
+        }
+    }
+
     @Replace
     public float clipSize(){
         return effect.clip;
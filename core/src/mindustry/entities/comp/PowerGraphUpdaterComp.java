@@ -11,6 +11,11 @@ abstract class PowerGraphUpdaterComp implements Entityc{
 
     @Override
     public void update(){
-        graph.update();
+        //with parallel updates, the first updater of a frame updates every graph
+        if(PowerGraph.parallelUpdates()){
+            PowerGraph.updateAll();
+        }else{
+            graph.update();
+        }
     }
 }
@@ -3,10 +3,10 @@ package mindustry.entities.comp;
 import arc.graphics.*;
 import arc.struct.*;
 import arc.util.*;
-import arc.util.pooling.*;
 import mindustry.annotations.Annotations.*;
 import mindustry.content.*;
 import mindustry.ctype.*;
+import mindustry.entities.*;
 import mindustry.entities.units.*;
 import mindustry.gen.*;
 import mindustry.type.*;
@@ -60,7 +60,7 @@ abstract class StatusComp implements Posc, Flyingc{
 
         if(!effect.reactive){
             //otherwise, no opposites found, add direct effect
-            StatusEntry entry = Pools.obtain(StatusEntry.class, StatusEntry::new);
+            StatusEntry entry = EntityPools.obtain(StatusEntry.class, StatusEntry::new);
             entry.set(effect, duration);
             statuses.add(entry);
             effect.applied(self(), duration, false);
@@ -82,7 +82,7 @@ abstract class StatusComp implements Posc, Flyingc{
         statuses.remove(e -> {
             if(e.effect == effect){
                 e.effect.onRemoved(self());
-                Pools.free(e);
+                EntityPools.free(e);
                 return true;
             }
             return false;
@@ -122,7 +122,7 @@ abstract class StatusComp implements Posc, Flyingc{
             if(entry != null) return entry;
         }
 
-        StatusEntry entry = Pools.obtain(StatusEntry.class, StatusEntry::new);
+        StatusEntry entry = EntityPools.obtain(StatusEntry.class, StatusEntry::new);
         entry.set(StatusEffects.dynamic, Float.POSITIVE_INFINITY);
         statuses.add(entry);
         entry.effect.applied(self(), entry.time, false);
@@ -195,7 +195,7 @@ abstract class StatusComp implements Posc, Flyingc{
                     entry.effect.onRemoved(self());
                 }
 
-                Pools.free(entry);
+                EntityPools.free(entry);
                 index --;
                 statuses.remove(index);
             }else{
@@ -2,11 +2,11 @@ package mindustry.game;
 
 import arc.*;
 import arc.math.*;
-import arc.struct.Bits;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.*;
 import mindustry.annotations.Annotations.*;
+import mindustry.async.*;
 import mindustry.core.*;
 import mindustry.game.EventType.*;
 import mindustry.gen.*;
@@ -15,21 +15,38 @@ import mindustry.io.*;
 import mindustry.world.meta.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 
 import static mindustry.Vars.*;
 
 public final class FogControl implements CustomChunk{
     private static volatile int ww, wh;
     private static final int dynamicUpdateInterval = 1000 / 25; //25 FPS
-    private static final Object notifyStatic = new Object(), notifyDynamic = new Object();
+    /** Half-widths of the rows of a circle, indexed by radius and then by vertical distance from the center. Filled lazily. */
+    private static volatile int[][] circleSpans = new int[64][];
 
     /** indexed by team */
     private volatile @Nullable FogData[] fog;
 
-    private final LongSeq staticEvents = new LongSeq();
-    private final LongSeq dynamicEventQueue = new LongSeq(), unitEventQueue = new LongSeq();
-    /** access must be synchronized; accessed from both threads */
-    private final LongSeq dynamicEvents = new LongSeq(100);
+    /** Static events queued on the main thread since the last batch was handed to the static fog thread. Main thread only. */
+    private EventBatch staticEvents = new EventBatch();
+    private final LongSeq unitEventQueue = new LongSeq();
+    private EventBatch dynamicEventQueue = new EventBatch();
+
+    //batches are handed between threads through lock-free queues; only the latest dynamic batch is kept, as it replaces all older ones
+    private final ConcurrentLinkedQueue<EventBatch> staticBatches = new ConcurrentLinkedQueue<>(), freeBatches = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<EventBatch> dynamicBatch = new AtomicReference<>();
+
+    /** Time between events being queued on the main thread and the fog data being updated, in milliseconds. */
+    public volatile long lastStaticLatency, lastDynamicLatency;
+
+    //events of the batch being drawn, grouped by team; guarded by the respective lock
+    private final TeamEvents staticGrouped = new TeamEvents(), dynamicGrouped = new TeamEvents();
+    //static and dynamic fog are drawn by their threads, but also by the main thread when forced, and a stopped thread may still be drawing
+    private final Object staticLock = new Object(), dynamicLock = new Object();
 
     private @Nullable Thread staticFogThread;
     private @Nullable Thread dynamicFogThread;
@@ -54,6 +71,7 @@ public final class FogControl implements CustomChunk{
             if(state.rules.fog && state.rules.staticFog){
                 pushStaticBlocks(true);
                 //force draw all static stuff immediately
+                flushStatic();
                 updateStatic();
 
                 loadedStatic = true;
@@ -68,10 +86,8 @@ public final class FogControl implements CustomChunk{
                 }
 
                 if(state.rules.staticFog){
-                    synchronized(staticEvents){
-                        //TODO event per team?
-                        pushEvent(FogEvent.get(event.tile.x, event.tile.y, Mathf.round(event.tile.build.fogRadius()), event.tile.build.team.id), false);
-                    }
+                    //TODO event per team?
+                    pushEvent(FogEvent.get(event.tile.x, event.tile.y, Mathf.round(event.tile.build.fogRadius()), event.tile.build.team.id), false);
                 }
             }
         });
@@ -96,7 +112,7 @@ public final class FogControl implements CustomChunk{
         SaveVersion.addCustomChunk("static-fog-data", this);
     }
 
-    public @Nullable Bits getDiscovered(Team team){
+    public @Nullable FogBits getDiscovered(Team team){
         return fog == null || fog[team.id] == null ? null : fog[team.id].staticData;
     }
 
@@ -133,13 +149,18 @@ public final class FogControl implements CustomChunk{
     void stop(){
         fog = null;
         //I don't care whether the fog thread crashes here, it's about to die anyway
-        staticEvents.clear();
+        staticEvents.events.clear();
+        EventBatch batch;
+        while((batch = staticBatches.poll()) != null){
+            free(batch);
+        }
         if(staticFogThread != null){
             staticFogThread.interrupt();
             staticFogThread = null;
         }
 
-        dynamicEvents.clear();
+        batch = dynamicBatch.getAndSet(null);
+        if(batch != null) free(batch);
         if(dynamicFogThread != null){
             dynamicFogThread.interrupt();
             dynamicFogThread = null;
@@ -150,15 +171,13 @@ public final class FogControl implements CustomChunk{
     void pushStaticBlocks(boolean initial){
         if(fog == null) fog = new FogData[256];
 
-        synchronized(staticEvents){
-            for(var build : Groups.build){
-                if(build.block.flags.contains(BlockFlag.hasFogRadius)){
-                    if(fog[build.team.id] == null){
-                        fog[build.team.id] = new FogData();
-                    }
-
-                    pushEvent(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id), initial);
+        for(var build : Groups.build){
+            if(build.block.flags.contains(BlockFlag.hasFogRadius)){
+                if(fog[build.team.id] == null){
+                    fog[build.team.id] = new FogData();
                 }
+
+                pushEvent(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id), initial);
             }
         }
     }
@@ -167,7 +186,8 @@ public final class FogControl implements CustomChunk{
     void pushEvent(long event, boolean skipRender){
         if(!state.rules.staticFog) return;
 
-        staticEvents.add(event);
+        if(staticEvents.events.size == 0) staticEvents.time = Time.millis();
+        staticEvents.events.add(event);
         if(!skipRender && !headless && FogEvent.team(event) == Vars.player.team().id){
             renderer.fog.handleEvent(event);
         }
@@ -178,9 +198,7 @@ public final class FogControl implements CustomChunk{
             fog[team.id].dynamicUpdated = true;
 
             if(state.rules.staticFog){
-                synchronized(staticEvents){
-                    pushEvent(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id), false);
-                }
+                pushEvent(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id), false);
             }
         }
     }
@@ -193,6 +211,7 @@ public final class FogControl implements CustomChunk{
         //force update static
         if(state.rules.staticFog && !loadedStatic){
             pushStaticBlocks(false);
+            flushStatic();
             updateStatic();
             loadedStatic = true;
         }
@@ -212,7 +231,7 @@ public final class FogControl implements CustomChunk{
         }
 
         //clear to prepare for queuing fog radius from units and buildings
-        dynamicEventQueue.clear();
+        dynamicEventQueue.events.clear();
 
         for(var team : state.teams.present){
             //AI teams do not have fog
@@ -226,21 +245,19 @@ public final class FogControl implements CustomChunk{
                     data = fog[team.team.id] = new FogData();
                 }
 
-                synchronized(staticEvents){
-                    //TODO slow?
-                    for(var unit : team.units){
-                        int tx = unit.tileX(), ty = unit.tileY(), pos = tx + ty * ww;
-                        if(unit.type.fogRadius <= 0f) continue;
-                        long event = FogEvent.get(tx, ty, (int)unit.type.fogRadius, team.team.id);
+                //TODO slow?
+                for(var unit : team.units){
+                    int tx = unit.tileX(), ty = unit.tileY(), pos = tx + ty * ww;
+                    if(unit.type.fogRadius <= 0f) continue;
+                    long event = FogEvent.get(tx, ty, (int)unit.type.fogRadius, team.team.id);
 
-                        //always update the dynamic events, but only *flush* the results when necessary?
-                        unitEventQueue.add(event);
+                    //always update the dynamic events, but only *flush* the results when necessary?
+                    unitEventQueue.add(event);
 
-                        if(unit.lastFogPos != pos){
-                            pushEvent(event, false);
-                            unit.lastFogPos = pos;
-                            data.dynamicUpdated = true;
-                        }
+                    if(unit.lastFogPos != pos){
+                        pushEvent(event, false);
+                        unit.lastFogPos = pos;
+                        data.dynamicUpdated = true;
                     }
                 }
 
@@ -251,41 +268,35 @@ public final class FogControl implements CustomChunk{
 
                     //add building updates
                     for(var build : indexer.getFlagged(team.team, BlockFlag.hasFogRadius)){
-                        dynamicEventQueue.add(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id));
+                        dynamicEventQueue.events.add(FogEvent.get(build.tile.x, build.tile.y, Mathf.round(build.fogRadius()), build.team.id));
                     }
 
                     //add unit updates
-                    dynamicEventQueue.addAll(unitEventQueue);
+                    dynamicEventQueue.events.addAll(unitEventQueue);
                 }
             }
         }
 
-        if(dynamicEventQueue.size > 0){
-            //flush unit events over when something happens
-            synchronized(dynamicEvents){
-                dynamicEvents.clear();
-                dynamicEvents.addAll(dynamicEventQueue);
-            }
-            dynamicEventQueue.clear();
+        if(dynamicEventQueue.events.size > 0){
+            //flush unit events over when something happens; a batch that was not picked up yet is outdated now
+            dynamicEventQueue.time = Time.millis();
+            EventBatch old = dynamicBatch.getAndSet(dynamicEventQueue);
+            dynamicEventQueue = old != null ? old : batch();
 
             //force update so visibility doesn't have a pop-in
             if(justLoaded){
-                updateDynamic(new Bits(256));
+                updateDynamic();
                 justLoaded = false;
             }
 
             //notify that it's time for rendering
-            //TODO this WILL block until it is done rendering, which is inherently problematic.
-            synchronized(notifyDynamic){
-                notifyDynamic.notify();
-            }
+            LockSupport.unpark(dynamicFogThread);
         }
 
         //wake up, it's time to draw some circles
-        if(state.rules.staticFog && staticEvents.size > 0 && staticFogThread != null){
-            synchronized(notifyStatic){
-                notifyStatic.notify();
-            }
+        if(state.rules.staticFog && staticEvents.events.size > 0 && staticFogThread != null){
+            flushStatic();
+            LockSupport.unpark(staticFogThread);
         }
     }
 
@@ -299,14 +310,11 @@ public final class FogControl implements CustomChunk{
         public void run(){
             while(true){
                 try{
-                    synchronized(notifyStatic){
-                        try{
-                            //wait until an event happens
-                            notifyStatic.wait();
-                        }catch(InterruptedException e){
-                            //end thread
-                            return;
-                        }
+                    //wait until an event happens
+                    LockSupport.park();
+                    if(isInterrupted()){
+                        //end thread
+                        return;
                     }
 
                     updateStatic();
@@ -316,25 +324,28 @@ public final class FogControl implements CustomChunk{
         }
     }
 
+    /** Hands all queued static events over to be drawn. Main thread only. */
+    void flushStatic(){
+        if(staticEvents.events.size > 0){
+            staticBatches.add(staticEvents);
+            staticEvents = batch();
+        }
+    }
+
+    /** Draws all static events that have been handed over. */
     void updateStatic(){
+        synchronized(staticLock){
+            EventBatch batch;
+            while((batch = staticBatches.poll()) != null){
+                drawTeams(batch.events, false);
 
-        //I really don't like synchronizing here, but there should be *some* performance benefit at least
-        synchronized(staticEvents){
-            int size = staticEvents.size;
-            for(int i = 0; i < size; i++){
-                long event = staticEvents.items[i];
-                int x = FogEvent.x(event), y = FogEvent.y(event), rad = FogEvent.radius(event), team = FogEvent.team(event);
-                var data = fog[team];
-                if(data != null){
-                    circle(data.staticData, x, y, rad);
-                }
+                lastStaticLatency = Time.timeSinceMillis(batch.time);
+                free(batch);
             }
-            staticEvents.clear();
         }
     }
 
     class DynamicFogThread extends Thread{
-        final Bits cleared = new Bits();
 
         DynamicFogThread(){
             super("DynamicFogThread");
@@ -345,17 +356,14 @@ public final class FogControl implements CustomChunk{
 
             while(true){
                 try{
-                    synchronized(notifyDynamic){
-                        try{
-                            //wait until an event happens
-                            notifyDynamic.wait();
-                        }catch(InterruptedException e){
-                            //end thread
-                            return;
-                        }
+                    //wait until an event happens
+                    LockSupport.park();
+                    if(isInterrupted()){
+                        //end thread
+                        return;
                     }
 
-                    updateDynamic(cleared);
+                    updateDynamic();
 
                     //ignore, don't want to crash this thread
                 }catch(Exception e){
@@ -366,48 +374,73 @@ public final class FogControl implements CustomChunk{
         }
     }
 
-    void updateDynamic(Bits cleared){
-        cleared.clear();
-
-        //ugly sync
-        synchronized(dynamicEvents){
-            int size = dynamicEvents.size;
+    void updateDynamic(){
+        synchronized(dynamicLock){
+            EventBatch batch = dynamicBatch.getAndSet(null);
+            if(batch == null) return;
 
-            //draw step
-            for(int i = 0; i < size; i++){
-                long event = dynamicEvents.items[i];
-                int x = FogEvent.x(event), y = FogEvent.y(event), rad = FogEvent.radius(event), team = FogEvent.team(event);
+            //each team is drawn into its back buffer, which is then swapped with the front buffer
+            drawTeams(batch.events, true);
 
-                if(rad <= 0) continue;
-
-                var data = fog[team];
-                if(data != null){
-
-                    //clear the buffer, since it is being re-drawn
-                    if(!cleared.get(team)){
-                        cleared.set(team);
-
-                        data.write.clear();
-                    }
+            lastDynamicLatency = Time.timeSinceMillis(batch.time);
+            free(batch);
+        }
+    }
 
+    /**
+     * Draws fog events of each team. Teams are drawn in parallel. The caller must hold the static or dynamic lock.
+     * @param dynamic if true, events are drawn into the cleared back buffer of each team, which is then swapped with its front buffer.
+     * Otherwise, events are drawn into the static data.
+     */
+    void drawTeams(LongSeq events, boolean dynamic){
+        var fog = this.fog;
+        if(fog == null) return;
+
+        //group events by team, keeping their order; the lock of the caller guards these buffers
+        TeamEvents grouped = dynamic ? dynamicGrouped : staticGrouped;
+        grouped.set(events);
+        IntSeq teams = grouped.teams;
+        LongSeq[] byTeam = grouped.byTeam;
+
+        Parallel.forEach(teams.size, index -> {
+            int team = teams.items[index];
+            var data = fog[team];
+            if(data == null) return;
+
+            FogBits bits = dynamic ? data.write : data.staticData;
+
+            LongSeq list = byTeam[team];
+            if(dynamic) bits.clear();
+
+            for(int i = 0; i < list.size; i++){
+                long event = list.items[i];
+                int rad = FogEvent.radius(event);
+
+                if(dynamic){
+                    if(rad <= 0) continue;
                     //radius is always +1 to keep up with visuals
-                    circle(data.write, x, y, rad + 1);
+                    rad ++;
                 }
-            }
-            dynamicEvents.clear();
-        }
 
-        //swap step, no need for synchronization or anything
-        for(int i = 0; i < 256; i++){
-            if(cleared.get(i)){
-                var data = fog[i];
+                circle(bits, FogEvent.x(event), FogEvent.y(event), rad);
+            }
 
+            if(dynamic){
                 //swap buffers, flushing the data that was just drawn
-                Bits temp = data.read;
-                data.read = data.write;
-                data.write = temp;
+                data.write = data.read;
+                data.read = bits;
             }
-        }
+        });
+    }
+
+    EventBatch batch(){
+        EventBatch batch = freeBatches.poll();
+        return batch == null ? new EventBatch() : batch;
+    }
+
+    void free(EventBatch batch){
+        batch.events.clear();
+        freeBatches.add(batch);
     }
 
     @Override
@@ -424,7 +457,7 @@ public final class FogControl implements CustomChunk{
         for(int i = 0; i < 256; i++){
             if(fog[i] != null){
                 stream.writeByte(i);
-                Bits data = fog[i].staticData;
+                FogBits data = fog[i].staticData;
                 int size = ww * wh;
 
                 int pos = 0;
@@ -462,7 +495,7 @@ public final class FogControl implements CustomChunk{
             fog[team] = new FogData();
 
             int pos = 0;
-            Bits bools = fog[team].staticData;
+            FogBits bools = fog[team].staticData;
 
             while(pos < len){
                 int data = stream.readByte() & 0xff;
@@ -485,14 +518,28 @@ public final class FogControl implements CustomChunk{
         return state.rules.fog && state.rules.staticFog && fog != null;
     }
 
-    static void circle(Bits arr, int x, int y, int radius){
+    static void circle(FogBits arr, int x, int y, int radius){
+        int[] spans = spans(radius);
+        for(int dy = -radius; dy <= radius; dy++){
+            int half = spans[Math.abs(dy)];
+            hline(arr, x - half, x + half, y + dy);
+        }
+    }
+
+    /**
+     * @return the half-width of each row of a circle, indexed by vertical distance from the center.
+     * Filling these rows covers exactly the same tiles as the horizontal lines of a midpoint circle.
+     */
+    static int[] spans(int radius){
+        int[][] all = circleSpans;
+        if(radius < all.length && all[radius] != null) return all[radius];
+
+        int[] spans = new int[radius + 1];
         int f = 1 - radius;
         int ddFx = 1, ddFy = -2 * radius;
         int px = 0, py = radius;
 
-        hline(arr, x, x, y + radius);
-        hline(arr, x, x, y - radius);
-        hline(arr, x - radius, x + radius, y);
+        spans[0] = radius;
 
         while(px < py){
             if(f >= 0){
@@ -503,14 +550,25 @@ public final class FogControl implements CustomChunk{
             px++;
             ddFx += 2;
             f += ddFx;
-            hline(arr, x - px, x + px, y + py);
-            hline(arr, x - px, x + px, y - py);
-            hline(arr, x - py, x + py, y + px);
-            hline(arr, x - py, x + py, y - px);
+            spans[py] = Math.max(spans[py], px);
+            spans[px] = Math.max(spans[px], py);
         }
+
+        //copy on write, as other threads may be reading the table
+        synchronized(FogControl.class){
+            all = circleSpans;
+            if(radius >= all.length){
+                all = Arrays.copyOf(all, Math.max(radius + 1, all.length * 2));
+            }else{
+                all = all.clone();
+            }
+            all[radius] = spans;
+            circleSpans = all;
+        }
+        return spans;
     }
 
-    static void hline(Bits arr, int x1, int x2, int y){
+    static void hline(FogBits arr, int x1, int x2, int y){
         if(y < 0 || y >= wh) return;
         int tmp;
 
@@ -531,11 +589,80 @@ public final class FogControl implements CustomChunk{
         arr.set(off + x1, off + x2);
     }
 
+    /** A fixed-size set of bits, which sets ranges a whole 64-bit word at a time. */
+    public static final class FogBits{
+        private final long[] words;
+
+        FogBits(int size){
+            words = new long[Math.max((size + 63) >>> 6, 1)];
+        }
+
+        public boolean get(int index){
+            return (words[index >>> 6] & (1L << index)) != 0;
+        }
+
+        /** Sets all bits in [from, to). */
+        void set(int from, int to){
+            if(from >= to) return;
+
+            int first = from >>> 6, last = (to - 1) >>> 6;
+            //shift amounts are taken modulo 64
+            long firstMask = -1L << from, lastMask = -1L >>> -to;
+
+            if(first == last){
+                words[first] |= firstMask & lastMask;
+            }else{
+                words[first] |= firstMask;
+                for(int i = first + 1; i < last; i++){
+                    words[i] = -1L;
+                }
+                words[last] |= lastMask;
+            }
+        }
+
+        void clear(){
+            Arrays.fill(words, 0L);
+        }
+    }
+
+    static class EventBatch{
+        final LongSeq events = new LongSeq();
+        /** Time at which the first event was queued. */
+        long time;
+    }
+
+    /** Events of a batch, grouped by team. Reused between batches. */
+    static class TeamEvents{
+        /** Teams that have events, in order of their first event. */
+        final IntSeq teams = new IntSeq();
+        final LongSeq[] byTeam = new LongSeq[256];
+
+        void set(LongSeq events){
+            for(int i = 0; i < teams.size; i++){
+                byTeam[teams.items[i]].clear();
+            }
+            teams.clear();
+
+            for(int i = 0; i < events.size; i++){
+                long event = events.items[i];
+                int team = FogEvent.team(event);
+                LongSeq list = byTeam[team];
+                if(list == null){
+                    byTeam[team] = list = new LongSeq();
+                }
+                if(list.size == 0){
+                    teams.add(team);
+                }
+                list.add(event);
+            }
+        }
+    }
+
     static class FogData{
         /** dynamic double-buffered data for dynamic (live) coverage */
-        volatile Bits read, write;
+        volatile FogBits read, write;
         /** static map exploration fog*/
-        final Bits staticData;
+        final FogBits staticData;
 
         /** last dynamic update timestamp. */
         long lastDynamicMs = 0;
@@ -545,9 +672,9 @@ public final class FogControl implements CustomChunk{
         FogData(){
             int len = ww * wh;
 
-            read = new Bits(len);
-            write = new Bits(len);
-            staticData = new Bits(len);
+            read = new FogBits(len);
+            write = new FogBits(len);
+            staticData = new FogBits(len);
         }
     }
 
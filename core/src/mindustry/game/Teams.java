@@ -153,6 +153,8 @@ public class Teams{
         present.clear();
         bosses.clear();
 
+        boolean useGrid = Groups.unit.grid() != null;
+
         for(Team team : Team.all){
             TeamData data = team.data();
 
@@ -166,6 +168,7 @@ public class Teams{
             if(data.unitTree != null){
                 data.unitTree.clear();
             }
+            data.unitTreeStale = useGrid;
 
             if(data.typeCounts != null){
                 Arrays.fill(data.typeCounts, 0);
@@ -185,7 +188,10 @@ public class Teams{
         for(Unit unit : Groups.unit){
             if(unit.type == null) continue;
             TeamData data = unit.team.data();
-            data.tree().insert(unit);
+            //with the unit grid enabled, team trees are only filled when something asks for them
+            if(!useGrid){
+                data.tree().insert(unit);
+            }
             data.units.add(unit);
             data.presentFlag = true;
 
@@ -263,6 +269,8 @@ public class Teams{
         public @Nullable QuadTree<Building> turretTree;
         /** Quadtree for units of this team. Do not access directly. */
         public @Nullable QuadTree<Unit> unitTree;
+        /** Whether units have not been inserted into the unit tree yet this frame, as the unit grid is in use. */
+        boolean unitTreeStale;
         /** Current unit cap. Do not modify externally. */
         public int unitCap;
         /** Total unit count. */
@@ -385,8 +393,15 @@ public class Teams{
             typeCounts[type.id] = Math.max(amount + typeCounts[type.id], 0);
         }
 
+        /** When the unit grid is enabled, the tree is only built when this is first called each frame. Prefer {@link mindustry.entities.Units} for queries. */
         public QuadTree<Unit> tree(){
             if(unitTree == null) unitTree = new QuadTree<>(Vars.world.getQuadBounds(new Rect()));
+            if(unitTreeStale){
+                unitTreeStale = false;
+                for(int i = 0; i < units.size; i++){
+                    unitTree.insert(units.items[i]);
+                }
+            }
             return unitTree;
         }
 
@@ -5,8 +5,10 @@ import arc.graphics.g2d.*;
 import arc.math.*;
 import arc.struct.*;
 import arc.util.*;
+import arc.util.pooling.Pool.*;
+import mindustry.entities.*;
 
-public class Trail{
+public class Trail implements Poolable{
     public int length;
 
     protected FloatSeq points;
@@ -17,6 +19,13 @@ public class Trail{
         points = new FloatSeq(length*3);
     }
 
+    /** @return an empty trail from {@link EntityPools}. Free it with {@link EntityPools#free(Object)} when it is no longer drawn. */
+    public static Trail obtain(int length){
+        Trail trail = EntityPools.obtain(Trail.class, () -> new Trail(0));
+        trail.length = length;
+        return trail;
+    }
+
     public Trail copy(){
         Trail out = new Trail(length);
         out.points.addAll(points);
@@ -34,6 +43,14 @@ public class Trail{
         points.clear();
     }
 
+    @Override
+    public void reset(){
+        points.clear();
+        lastX = lastY = lastAngle = -1;
+        counter = 0f;
+        lastW = 0f;
+    }
+
     public int size(){
         return points.size/3;
     }
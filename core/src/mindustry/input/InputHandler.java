@@ -1760,10 +1760,9 @@ public abstract class InputHandler implements InputProcessor, GestureListener{
     }
 
     public @Nullable Unit selectedCommandUnit(float x, float y){
-        var tree = player.team().data().tree();
         tmpUnits.clear();
         float rad = 4f;
-        tree.intersect(x - rad/2f, y - rad/2f, rad, rad, tmpUnits);
+        Units.nearby(player.team(), x - rad/2f, y - rad/2f, rad, rad, tmpUnits::add);
         return tmpUnits.min(u -> u.isCommandable(), u -> u.dst(x, y) - u.hitSize/2f);
     }
 
@@ -1771,21 +1770,15 @@ public abstract class InputHandler implements InputProcessor, GestureListener{
         tmpUnits.clear();
         float rad = 4f;
 
-        Seq<TeamData> data = state.teams.present;
-        for(int i = 0; i < data.size; i++){
-            if(data.items[i].team != player.team()){
-                data.items[i].tree().intersect(x - rad / 2f, y - rad / 2f, rad, rad, tmpUnits);
-            }
-        }
+        Units.nearbyEnemies(player.team(), x - rad / 2f, y - rad / 2f, rad, rad, tmpUnits::add);
 
         return tmpUnits.min(u -> !u.inFogTo(player.team()), u -> u.dst(x, y) - u.hitSize/2f);
     }
 
     public Seq<Unit> selectedCommandUnits(float x, float y, float w, float h, Boolf<Unit> predicate){
-        var tree = player.team().data().tree();
         tmpUnits.clear();
         float rad = 4f;
-        tree.intersect(Tmp.r1.set(x - rad/2f, y - rad/2f, rad*2f + w, rad*2f + h).normalize(), tmpUnits);
+        Units.nearby(player.team(), Tmp.r1.set(x - rad/2f, y - rad/2f, rad*2f + w, rad*2f + h).normalize(), tmpUnits::add);
         tmpUnits.removeAll(u -> !u.isCommandable() || !predicate.get(u));
         return tmpUnits;
     }
@@ -2,6 +2,7 @@ package mindustry.io;
 
 import arc.*;
 import arc.files.*;
+import arc.func.*;
 import arc.struct.*;
 import arc.util.*;
 import arc.util.io.*;
@@ -12,6 +13,7 @@ import mindustry.world.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.*;
 
 import static mindustry.Vars.*;
@@ -20,16 +22,26 @@ public class SaveIO{
     /** Save format header. */
     public static final byte[] header = {'M', 'S', 'A', 'V'};
     public static final IntMap<SaveVersion> versions = new IntMap<>();
-    public static final Seq<SaveVersion> versionArray = Seq.with(new Save1(), new Save2(), new Save3(), new Save4(), new Save5(), new Save6(), new Save7(), new Save8());
+    public static final Seq<SaveVersion> versionArray = Seq.with(new Save1(), new Save2(), new Save3(), new Save4(), new Save5(), new Save6(), new Save7(), new Save8(), new Save9());
+    /** Version written by default: the latest one that is not indexed. Indexed saves can't be read by older builds, so they are only written when requested. */
+    private static final SaveVersion defaultVersion, indexedVersion;
+
+    /** Compresses and writes asynchronous saves, one at a time. */
+    private static final ExecutorService saveExecutor = Threads.executor("Save Writer", 1);
+    /** Uncompressed data of the asynchronous save in progress. Reused between saves, so only one can be in progress. */
+    private static final ReusableByteOutStream asyncBuffer = new ReusableByteOutStream();
+    private static boolean asyncSaving;
 
     static{
         for(SaveVersion version : versionArray){
             versions.put(version.version, version);
         }
+        defaultVersion = versionArray.select(v -> !v.indexed()).peek();
+        indexedVersion = versionArray.select(SaveVersion::indexed).peek();
     }
 
     public static SaveVersion getSaveWriter(){
-        return versionArray.peek();
+        return defaultVersion;
     }
 
     public static SaveVersion getSaveWriter(int version){
@@ -37,22 +49,97 @@ public class SaveIO{
     }
 
     public static void save(Fi file){
+        save(file, false);
+    }
+
+    /** @param indexed whether to write an indexed save (see {@link SaveIndex}), which older builds can't read. */
+    public static void save(Fi file, boolean indexed){
         boolean exists = file.exists();
         if(exists) file.moveTo(backupFileFor(file));
         try{
-            write(file);
+            write(file, null, indexed);
         }catch(Throwable e){
             if(exists) backupFileFor(file).moveTo(file);
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Saves to a file without compressing or writing it on the calling thread. The save is written to memory first, uncompressed,
+     * which is the only part that has to happen on the main thread; its copy of the world is then compressed and written to the file on another thread.
+     * The file has the same format as one written by {@link #save(Fi)}. Main thread only.
+     * @param done called on the main thread once the file has been written, with the exception that occurred or null if it succeeded.
+     * @return whether the save was started. False if another asynchronous save is still being written,
+     * or if writing the save to memory failed, in which case done has already been called with the error.
+     */
+    public static boolean saveAsync(Fi file, @Nullable StringMap tags, @Nullable Cons<Throwable> done){
+        return saveAsync(file, tags, false, done);
+    }
+
+    /**
+     * Same as {@link #saveAsync(Fi, StringMap, Cons)}.
+     * @param indexed whether to write an indexed save (see {@link SaveIndex}), which older builds can't read.
+     */
+    public static boolean saveAsync(Fi file, @Nullable StringMap tags, boolean indexed, @Nullable Cons<Throwable> done){
+        if(asyncSaving) return false;
+
+        SaveVersion ver = getVersion(indexed);
+        asyncBuffer.reset();
+        try{
+            write(asyncBuffer, tags, ver);
+        }catch(Throwable e){
+            if(done != null) done.get(e);
+            return false;
+        }
+
+        asyncSaving = true;
+        saveExecutor.submit(() -> {
+            Throwable error = null;
+            boolean exists = file.exists();
+            try{
+                if(exists) file.moveTo(backupFileFor(file));
+                writeData(file, asyncBuffer.getBytes(), asyncBuffer.size(), ver);
+            }catch(Throwable e){
+                if(exists) backupFileFor(file).moveTo(file);
+                error = e;
+            }
+
+            Throwable result = error;
+            Core.app.post(() -> {
+                asyncSaving = false;
+                if(done != null) done.get(result);
+            });
+        });
+        return true;
+    }
+
+    /** @return whether an asynchronous save is still being written. */
+    public static boolean isSavingAsync(){
+        return asyncSaving;
+    }
+
+    /** @return a stream of the decompressed contents of a save file, in either format. */
     public static DataInputStream getStream(Fi file){
+        return getStream(file, null);
+    }
+
+    /**
+     * @param lastRegion the last region that will be read. Indexed saves only decompress the regions up to this one; null to read all.
+     * @return a stream of the decompressed contents of a save file, in either format.
+     */
+    public static DataInputStream getStream(Fi file, @Nullable String lastRegion){
+        if(SaveIndex.isIndexed(file)){
+            try{
+                return SaveIndex.read(file).open(lastRegion);
+            }catch(IOException e){
+                throw new SaveException(e);
+            }
+        }
         return new DataInputStream(new InflaterInputStream(file.read(bufferSize)));
     }
 
     public static DataInputStream getBackupStream(Fi file){
-        return new DataInputStream(new InflaterInputStream(backupFileFor(file).read(bufferSize)));
+        return getStream(backupFileFor(file));
     }
 
     public static boolean isSaveValid(Fi file){
@@ -60,7 +147,7 @@ public class SaveIO{
     }
 
     private static boolean isSaveFileValid(Fi file){
-        try(DataInputStream stream = new DataInputStream(new InflaterInputStream(file.read(bufferSize)))){
+        try(DataInputStream stream = getStream(file, "meta")){
             getMeta(stream);
             return true;
         }catch(Throwable e){
@@ -79,10 +166,10 @@ public class SaveIO{
 
     public static SaveMeta getMeta(Fi file){
         try{
-            return getMeta(getStream(file));
+            return getMeta(getStream(file, "meta"));
         }catch(Throwable e){
             Log.err(e);
-            return getMeta(getBackupStream(file));
+            return getMeta(getStream(backupFileFor(file), "meta"));
         }
     }
 
@@ -112,7 +199,36 @@ public class SaveIO{
     }
 
     public static void write(Fi file, StringMap tags){
-        write(new FastDeflaterOutputStream(file.write(false, bufferSize)), tags);
+        write(file, tags, false);
+    }
+
+    /** @param indexed whether to write an indexed save (see {@link SaveIndex}), which older builds can't read. */
+    public static void write(Fi file, @Nullable StringMap tags, boolean indexed){
+        SaveVersion ver = getVersion(indexed);
+        if(ver.indexed()){
+            ReusableByteOutStream data = new ReusableByteOutStream();
+            write(data, tags, ver);
+            try{
+                writeData(file, data.getBytes(), data.size(), ver);
+            }catch(IOException e){
+                throw new RuntimeException(e);
+            }
+        }else{
+            write(new FastDeflaterOutputStream(file.write(false, bufferSize)), tags, ver);
+        }
+    }
+
+    /** Compresses uncompressed save data, as written by {@link #write(OutputStream, StringMap, SaveVersion)}, to a file. */
+    private static void writeData(Fi file, byte[] data, int length, SaveVersion ver) throws IOException{
+        if(ver.indexed()){
+            try(OutputStream out = file.write(false, bufferSize)){
+                SaveIndex.write(out, data, length, Save9.regions);
+            }
+        }else{
+            try(OutputStream out = new FastDeflaterOutputStream(file.write(false, bufferSize))){
+                out.write(data, 0, length);
+            }
+        }
     }
 
     public static void write(Fi file){
@@ -120,9 +236,13 @@ public class SaveIO{
     }
 
     public static void write(OutputStream os, StringMap tags){
+        write(os, tags, getVersion());
+    }
+
+    /** Writes save data of a specific version to a stream, which compresses it as needed. Indexed versions are compressed by {@link #write(Fi, StringMap, boolean)} instead. */
+    public static void write(OutputStream os, @Nullable StringMap tags, SaveVersion ver){
         try(DataOutputStream stream = new DataOutputStream(os)){
             Events.fire(new SaveWriteEvent());
-            SaveVersion ver = getVersion();
 
             stream.write(header);
             stream.writeInt(ver.version);
@@ -147,19 +267,19 @@ public class SaveIO{
     public static void load(Fi file, WorldContext context) throws SaveException{
         try{
             //try and load; if any exception at all occurs
-            load(new InflaterInputStream(file.read(bufferSize)), context);
+            load(getStream(file), context);
         }catch(SaveException e){
             Log.err(e);
             Fi backup = file.sibling(file.name() + "-backup." + file.extension());
             if(backup.exists()){
-                load(new InflaterInputStream(backup.read(bufferSize)), context);
+                load(getStream(backup), context);
             }else{
                 throw new SaveException(e.getCause());
             }
         }
     }
 
-    /** Loads from a deflated (!) input stream. */
+    /** Loads from a decompressed (!) input stream; see {@link #getStream(Fi)}. */
     public static void load(InputStream is, WorldContext context) throws SaveException{
         try(CounterInputStream counter = new CounterInputStream(is); DataInputStream stream = new DataInputStream(counter)){
             logic.reset();
@@ -180,7 +300,12 @@ public class SaveIO{
     }
 
     public static SaveVersion getVersion(){
-        return versionArray.peek();
+        return defaultVersion;
+    }
+
+    /** @return the version written for regular or indexed saves. */
+    public static SaveVersion getVersion(boolean indexed){
+        return indexed ? indexedVersion : defaultVersion;
     }
 
     public static void readHeader(DataInput input) throws IOException{
@@ -0,0 +1,240 @@
+package mindustry.io;
+
+import arc.Files.*;
+import arc.files.*;
+import arc.util.*;
+import arc.util.io.*;
+import mindustry.async.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.zip.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Reads and writes indexed save files. Instead of a single compressed stream, the regions of the save are split into blocks that are
+ * compressed independently, and an uncompressed index of all blocks is written at the start of the file.
+ * This allows reading only the regions that are needed (e.g. the meta region for the save list), and decompressing blocks on multiple threads.
+ * <p>
+ * Layout: save header, version, block count, then the region name, uncompressed length and compressed length of each block, followed by the data of all blocks.
+ * Every block is a complete zlib stream. Decompressed blocks joined together are exactly the regions of a regular save, so they are read by the same code.
+ */
+public class SaveIndex{
+    /** Maximum uncompressed size of a block, in bytes. Large regions (usually the map and entities) are split into multiple blocks. */
+    public static final int blockSize = 1 << 20;
+    private static final int level = Deflater.BEST_SPEED;
+
+    public final Fi file;
+    public final int version;
+    /** Region name, uncompressed length, compressed length and file offset of each block. */
+    public final String[] regions;
+    public final int[] rawLengths, compressedLengths;
+    public final long[] offsets;
+
+    private SaveIndex(Fi file, int version, int blocks){
+        this.file = file;
+        this.version = version;
+        regions = new String[blocks];
+        rawLengths = new int[blocks];
+        compressedLengths = new int[blocks];
+        offsets = new long[blocks];
+    }
+
+    /** @return whether this file is an indexed save. Regular saves start with a zlib header instead of the save header. */
+    public static boolean isIndexed(Fi file){
+        try(InputStream stream = file.read(32)){
+            return stream.read() == SaveIO.header[0];
+        }catch(IOException e){
+            return false;
+        }
+    }
+
+    /** Reads the index of a file. */
+    public static SaveIndex read(Fi file) throws IOException{
+        try(CounterInputStream counter = new CounterInputStream(file.read(bufferSize)); DataInputStream stream = new DataInputStream(counter)){
+            SaveIO.readHeader(stream);
+            int version = stream.readInt();
+            int blocks = stream.readInt();
+            if(blocks < 0) throw new IOException("Invalid block count: " + blocks);
+
+            SaveIndex index = new SaveIndex(file, version, blocks);
+            for(int i = 0; i < blocks; i++){
+                index.regions[i] = stream.readUTF();
+                index.rawLengths[i] = stream.readInt();
+                index.compressedLengths[i] = stream.readInt();
+            }
+
+            long offset = counter.count;
+            for(int i = 0; i < blocks; i++){
+                index.offsets[i] = offset;
+                offset += index.compressedLengths[i];
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Decompresses regions of the save.
+     * @param lastRegion the last region that is needed; null to read all of them.
+     * @return a stream containing the save header, version and the requested regions, as they would be read from a regular save.
+     */
+    public DataInputStream open(@Nullable String lastRegion) throws IOException{
+        int blocks = regions.length;
+        if(lastRegion != null){
+            int last = -1;
+            for(int i = 0; i < regions.length; i++){
+                if(regions[i].equals(lastRegion)) last = i;
+            }
+            if(last == -1) throw new IOException("Missing region \"" + lastRegion + "\".");
+            blocks = last + 1;
+        }
+
+        //header, followed by the regions at the same offsets they would have in a regular save
+        int[] rawOffsets = new int[blocks];
+        int total = SaveIO.header.length + 4;
+        for(int i = 0; i < blocks; i++){
+            rawOffsets[i] = total;
+            total += rawLengths[i];
+        }
+
+        byte[] data = new byte[total];
+        System.arraycopy(SaveIO.header, 0, data, 0, SaveIO.header.length);
+        data[4] = (byte)(version >>> 24);
+        data[5] = (byte)(version >>> 16);
+        data[6] = (byte)(version >>> 8);
+        data[7] = (byte)version;
+
+        //dedicated servers read blocks at their offsets from multiple threads; files inside jars or assets can only be streamed
+        if(headless && file.type() != FileType.classpath && file.type() != FileType.internal){
+            try(RandomAccessFile raf = new RandomAccessFile(file.file(), "r"); FileChannel channel = raf.getChannel()){
+                parallel(blocks, i -> {
+                    byte[] compressed = new byte[compressedLengths[i]];
+                    ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                    //positional reads don't change the position of the channel, so they can happen concurrently
+                    while(buffer.hasRemaining()){
+                        if(channel.read(buffer, offsets[i] + buffer.position()) < 0) throw new EOFException("Save block is truncated.");
+                    }
+                    inflate(compressed, data, rawOffsets[i], rawLengths[i]);
+                });
+            }
+        }else{
+            byte[][] compressed = new byte[blocks][];
+            try(DataInputStream stream = new DataInputStream(file.read(bufferSize))){
+                if(blocks > 0) stream.readFully(new byte[(int)offsets[0]]); //skip the index
+                for(int i = 0; i < blocks; i++){
+                    stream.readFully(compressed[i] = new byte[compressedLengths[i]]);
+                }
+            }
+            parallel(blocks, i -> inflate(compressed[i], data, rawOffsets[i], rawLengths[i]));
+        }
+
+        return new DataInputStream(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Writes uncompressed save data as an indexed save. Blocks are compressed on multiple threads.
+     * @param data the save header, version and regions of a regular save, uncompressed.
+     * @param regionNames names of the regions in data, in order.
+     */
+    public static void write(OutputStream output, byte[] data, int length, String[] regionNames) throws IOException{
+        int headerLength = SaveIO.header.length + 4;
+        int version = ((data[4] & 0xff) << 24) | ((data[5] & 0xff) << 16) | ((data[6] & 0xff) << 8) | (data[7] & 0xff);
+
+        //split regions into blocks, using the length each region starts with
+        int count = 0;
+        for(int offset = headerLength, region = 0; offset < length; region++){
+            if(region >= regionNames.length) throw new IOException("Save data contains more regions than expected.");
+            int regionLength = 4 + readInt(data, offset);
+            count += Math.max((regionLength + blockSize - 1) / blockSize, 1);
+            offset += regionLength;
+        }
+
+        String[] names = new String[count];
+        int[] starts = new int[count], lengths = new int[count];
+        for(int offset = headerLength, region = 0, block = 0; offset < length; region++){
+            int end = offset + 4 + readInt(data, offset);
+            do{
+                names[block] = regionNames[region];
+                starts[block] = offset;
+                lengths[block] = Math.min(end - offset, blockSize);
+                offset += lengths[block];
+                block++;
+            }while(offset < end);
+        }
+
+        byte[][] compressed = new byte[count][];
+        parallel(count, i -> {
+            Deflater def = new Deflater(level);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(lengths[i] / 4 + 64);
+            byte[] buffer = new byte[8192];
+            def.setInput(data, starts[i], lengths[i]);
+            def.finish();
+            while(!def.finished()){
+                out.write(buffer, 0, def.deflate(buffer));
+            }
+            def.end();
+            compressed[i] = out.toByteArray();
+        });
+
+        DataOutputStream stream = new DataOutputStream(output);
+        stream.write(SaveIO.header);
+        stream.writeInt(version);
+        stream.writeInt(count);
+        for(int i = 0; i < count; i++){
+            stream.writeUTF(names[i]);
+            stream.writeInt(lengths[i]);
+            stream.writeInt(compressed[i].length);
+        }
+        for(byte[] block : compressed){
+            stream.write(block);
+        }
+        stream.flush();
+    }
+
+    private static void inflate(byte[] compressed, byte[] out, int offset, int length) throws IOException{
+        Inflater inflater = new Inflater();
+        try{
+            inflater.setInput(compressed);
+            int read = 0;
+            while(read < length){
+                int amount = inflater.inflate(out, offset + read, length - read);
+                if(amount == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())){
+                    throw new IOException("Save block is truncated.");
+                }
+                read += amount;
+            }
+        }catch(DataFormatException e){
+            throw new IOException(e);
+        }finally{
+            inflater.end();
+        }
+    }
+
+    private static int readInt(byte[] data, int offset){
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+    /** Runs a task for every index in [0, count) with {@link Parallel#forEach(int, arc.func.Intc)}, rethrowing I/O errors as they are. */
+    private static void parallel(int count, IOIntc task) throws IOException{
+        try{
+            Parallel.forEach(count, i -> {
+                try{
+                    task.get(i);
+                }catch(IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }catch(UncheckedIOException e){
+            throw e.getCause();
+        }catch(RuntimeException e){
+            if(e.getCause() instanceof UncheckedIOException u) throw u.getCause();
+            throw e;
+        }
+    }
+
+    interface IOIntc{
+        void get(int i) throws IOException;
+    }
+}
@@ -47,6 +47,11 @@ public abstract class SaveVersion extends SaveFileReader{
         this.version = version;
     }
 
+    /** @return whether files of this version are written as indexed saves instead of a single compressed stream. See {@link SaveIndex}. */
+    public boolean indexed(){
+        return false;
+    }
+
     public SaveMeta getMeta(DataInput stream) throws IOException{
         stream.readInt(); //length of data, doesn't matter here
         StringMap map = readStringMap(stream);
@@ -206,17 +211,19 @@ public abstract class SaveVersion extends SaveFileReader{
         stream.writeShort(world.width());
         stream.writeShort(world.height());
 
+        int size = world.width() * world.height();
+        //run lengths only depend on IDs, so they are found by scanning arrays instead of tiles
+        short[] floors = new short[size], overlays = new short[size], blocks = new short[size];
+        world.tiles.getIds(floors, overlays, blocks);
+
         //floor + overlay
-        for(int i = 0; i < world.width() * world.height(); i++){
-            Tile tile = world.rawTile(i % world.width(), i / world.width());
-            stream.writeShort(tile.floorID());
-            stream.writeShort(tile.overlayID());
+        for(int i = 0; i < size; i++){
+            stream.writeShort(floors[i]);
+            stream.writeShort(overlays[i]);
             int consecutives = 0;
 
-            for(int j = i + 1; j < world.width() * world.height() && consecutives < 255; j++){
-                Tile nextTile = world.rawTile(j % world.width(), j / world.width());
-
-                if(nextTile.floorID() != tile.floorID() || nextTile.overlayID() != tile.overlayID()){
+            for(int j = i + 1; j < size && consecutives < 255; j++){
+                if(floors[j] != floors[i] || overlays[j] != overlays[i]){
                     break;
                 }
 
@@ -228,9 +235,9 @@ public abstract class SaveVersion extends SaveFileReader{
         }
 
         //blocks
-        for(int i = 0; i < world.width() * world.height(); i++){
-            Tile tile = world.rawTile(i % world.width(), i / world.width());
-            stream.writeShort(tile.blockID());
+        for(int i = 0; i < size; i++){
+            Tile tile = world.tiles.geti(i);
+            stream.writeShort(blocks[i]);
 
             boolean savedata = tile.block().saveData;
             byte packed = (byte)((tile.build != null ? 1 : 0) | (savedata ? 2 : 0));
@@ -255,10 +262,8 @@ public abstract class SaveVersion extends SaveFileReader{
                 //write consecutive non-entity blocks
                 int consecutives = 0;
 
-                for(int j = i + 1; j < world.width() * world.height() && consecutives < 255; j++){
-                    Tile nextTile = world.rawTile(j % world.width(), j / world.width());
-
-                    if(nextTile.blockID() != tile.blockID()){
+                for(int j = i + 1; j < size && consecutives < 255; j++){
+                    if(blocks[j] != blocks[i]){
                         break;
                     }
 
@@ -0,0 +1,18 @@
+package mindustry.io.versions;
+
+import mindustry.io.*;
+
+/** Same regions as version 8, written as an indexed save; see {@link SaveIndex}. */
+public class Save9 extends SaveVersion{
+    /** Names of the regions written by this version, in order. */
+    public static final String[] regions = {"meta", "content", "map", "entities", "markers", "custom"};
+
+    public Save9(){
+        super(9);
+    }
+
+    @Override
+    public boolean indexed(){
+        return true;
+    }
+}
@@ -0,0 +1,136 @@
+package mindustry.logic;
+
+import arc.util.*;
+import mindustry.logic.LExecutor.*;
+
+/**
+ * Replaces assembled instructions with specialized versions that do not dispatch through operator lambdas.
+ * Every instruction is replaced one-to-one, so jump addresses, the instruction budget and wait/stop semantics are unchanged.
+ * Instructions that cannot be specialized are left as they are, and run through the interpreter as usual.
+ */
+public class LCompiler{
+
+    /** @return a new array with specialized instructions. The input array is not modified. */
+    public static LInstruction[] compile(LInstruction[] instructions){
+        LInstruction[] out = new LInstruction[instructions.length];
+        for(int i = 0; i < instructions.length; i++){
+            out[i] = compile(instructions[i]);
+        }
+        return out;
+    }
+
+    /** @return a specialized version of this instruction, or the instruction itself if there is none. */
+    public static LInstruction compile(LInstruction inst){
+        if(inst instanceof JumpI jump){
+            if(jump.address == -1) return new NoopI();
+            if(jump.op == ConditionOp.always) return new GotoI(jump.address);
+            if(jump.op != ConditionOp.strictEqual) return new NumJumpI(jump.op, jump.value, jump.compare, jump.address);
+        }else if(inst instanceof OpI op){
+            if(!op.op.unary && op.op != LogicOp.strictEqual && NumOpI.supports(op.op)){
+                //the result can never be stored, and binary operations have no side effects
+                if(op.dest.constant) return new NoopI();
+                return new NumOpI(op.op, op.a, op.b, op.dest);
+            }
+        }else if(inst instanceof SetI set){
+            if(set.to.constant) return new NoopI();
+        }
+        return inst;
+    }
+
+    /** Unconditional jump. */
+    public static class GotoI implements LInstruction{
+        public final int address;
+
+        public GotoI(int address){
+            this.address = address;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            exec.counter.numval = address;
+        }
+    }
+
+    /** Conditional jump with the comparison inlined. Only equality checks can compare objects. */
+    public static class NumJumpI implements LInstruction{
+        public final ConditionOp op;
+        public final LVar value, compare;
+        public final int address;
+
+        public NumJumpI(ConditionOp op, LVar value, LVar compare, int address){
+            this.op = op;
+            this.value = value;
+            this.compare = compare;
+            this.address = address;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            LVar va = value, vb = compare;
+            boolean cmp;
+
+            switch(op){
+                case equal -> cmp = va.isobj && vb.isobj ? Structs.eq(va.objval, vb.objval) : Math.abs(va.num() - vb.num()) < 0.000001;
+                case notEqual -> cmp = va.isobj && vb.isobj ? !Structs.eq(va.objval, vb.objval) : Math.abs(va.num() - vb.num()) >= 0.000001;
+                case lessThan -> cmp = va.num() < vb.num();
+                case lessThanEq -> cmp = va.num() <= vb.num();
+                case greaterThan -> cmp = va.num() > vb.num();
+                case greaterThanEq -> cmp = va.num() >= vb.num();
+                default -> cmp = op.function.get(va.num(), vb.num());
+            }
+
+            if(cmp){
+                exec.counter.numval = address;
+            }
+        }
+    }
+
+    /** Binary numeric operation with the arithmetic inlined. */
+    public static class NumOpI implements LInstruction{
+        public final LogicOp op;
+        public final LVar a, b, dest;
+
+        public NumOpI(LogicOp op, LVar a, LVar b, LVar dest){
+            this.op = op;
+            this.a = a;
+            this.b = b;
+            this.dest = dest;
+        }
+
+        /** @return whether this operation has an inlined version. Operations that support objects are not inlined. */
+        public static boolean supports(LogicOp op){
+            return switch(op){
+                case add, sub, mul, div, idiv, mod, pow, land, lessThan, lessThanEq, greaterThan, greaterThanEq, shl, shr, or, and, xor, max, min -> true;
+                default -> false;
+            };
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            double a = this.a.num(), b = this.b.num();
+
+            dest.setnum(switch(op){
+                case add -> a + b;
+                case sub -> a - b;
+                case mul -> a * b;
+                case div -> a / b;
+                case idiv -> Math.floor(a / b);
+                case mod -> a % b;
+                case pow -> Math.pow(a, b);
+                case land -> a != 0 && b != 0 ? 1 : 0;
+                case lessThan -> a < b ? 1 : 0;
+                case lessThanEq -> a <= b ? 1 : 0;
+                case greaterThan -> a > b ? 1 : 0;
+                case greaterThanEq -> a >= b ? 1 : 0;
+                case shl -> (long)a << (long)b;
+                case shr -> (long)a >> (long)b;
+                case or -> (long)a | (long)b;
+                case and -> (long)a & (long)b;
+                case xor -> (long)a ^ (long)b;
+                case max -> Math.max(a, b);
+                case min -> Math.min(a, b);
+                default -> op.function2.get(a, b);
+            });
+        }
+    }
+}
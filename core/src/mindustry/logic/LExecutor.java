@@ -20,6 +20,7 @@ import mindustry.game.MapObjectives.*;
 import mindustry.game.Teams.*;
 import mindustry.gen.*;
 import mindustry.logic.LogicFx.*;
+import mindustry.net.Administration.*;
 import mindustry.type.*;
 import mindustry.ui.*;
 import mindustry.world.*;
@@ -58,6 +59,8 @@ public class LExecutor{
     public IntSet linkIds = new IntSet();
     public Team team = Team.derelict;
     public boolean privileged = false;
+    /** Profiling data, created when this executor first runs with {@link LProfiler#enabled} set. */
+    public @Nullable LProfiler.Profile profile;
 
     //yes, this is a minor memory leak, but it's probably not significant enough to matter
     protected static IntFloatMap unitTimeouts = new IntFloatMap();
@@ -86,7 +89,11 @@ public class LExecutor{
         }
 
         if(counter.numval < instructions.length){
-            instructions[(int)(counter.numval++)].run(this);
+            if(LProfiler.enabled){
+                LProfiler.run(this, instructions[(int)(counter.numval++)]);
+            }else{
+                instructions[(int)(counter.numval++)].run(this);
+            }
         }
     }
 
@@ -98,6 +105,14 @@ public class LExecutor{
         }
 
         instructions = builder.instructions;
+        if(Config.compileLogic.bool()){
+            try{
+                instructions = LCompiler.compile(instructions);
+            }catch(Throwable e){
+                //fall back to the interpreted instructions
+                Log.err("Failed to compile processor code", e);
+            }
+        }
         counter = builder.getVar("@counter");
         unit = builder.getVar("@unit");
         thisv = builder.getVar("@this");
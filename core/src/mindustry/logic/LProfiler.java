@@ -0,0 +1,136 @@
+package mindustry.logic;
+
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.logic.LExecutor.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
+
+import java.util.*;
+
+/**
+ * Tracks how much time processors spend running instructions. Profiling data is kept separately for each {@link LExecutor}.
+ * When disabled, the only overhead is a single flag check per instruction.
+ */
+public class LProfiler{
+    /** Whether instructions are currently being profiled. Main thread only. */
+    public static boolean enabled;
+
+    /** Instructions that query the world, e.g. sensing buildings or scanning for units. */
+    private static final ObjectSet<Class<?>> queryTypes = ObjectSet.with(
+        UnitBindI.class, UnitLocateI.class, SenseI.class, RadarI.class, GetBlockI.class, FetchI.class, SenseWeatherI.class
+    );
+
+    private static final ObjectIntMap<Class<?>> typeIds = new ObjectIntMap<>();
+    private static final Seq<String> typeNames = new Seq<>();
+    private static final IntSet queryTypeIds = new IntSet();
+
+    /** Runs an instruction and records how long it took. */
+    public static void run(LExecutor exec, LInstruction inst){
+        Profile profile = exec.profile;
+        if(profile == null){
+            profile = exec.profile = new Profile();
+        }
+
+        int type = typeId(inst.getClass());
+
+        long start = Time.nanos();
+        inst.run(exec);
+        long time = Time.timeSinceNanos(start);
+
+        if(type >= profile.typeTime.length){
+            profile.typeTime = Arrays.copyOf(profile.typeTime, typeNames.size);
+            profile.typeCount = Arrays.copyOf(profile.typeCount, typeNames.size);
+        }
+
+        profile.instructions ++;
+        profile.time += time;
+        profile.typeTime[type] += time;
+        profile.typeCount[type] ++;
+        if(queryTypeIds.contains(type)){
+            profile.queries ++;
+        }
+    }
+
+    /** @return a short display name for an instruction type, as used for {@link Profile#typeTime} indices. */
+    public static String typeName(int type){
+        return typeNames.get(type);
+    }
+
+    /** @return all processors with profiling data, sorted by a value in descending order. */
+    public static Seq<LogicBuild> sorted(Sort sort){
+        Seq<LogicBuild> out = new Seq<>();
+        for(var build : Groups.build){
+            if(build instanceof LogicBuild logic && logic.executor.profile != null){
+                out.add(logic);
+            }
+        }
+        return out.sort(Structs.comparingFloat(b -> -sort.get(b.executor.profile)));
+    }
+
+    /** Clears the profiling data of every processor. */
+    public static void reset(){
+        for(var build : Groups.build){
+            if(build instanceof LogicBuild logic){
+                logic.executor.profile = null;
+            }
+        }
+    }
+
+    private static int typeId(Class<?> type){
+        int id = typeIds.get(type, -1);
+        if(id == -1){
+            String name = type.getSimpleName();
+            if(name.endsWith("I")) name = name.substring(0, name.length() - 1);
+
+            id = typeNames.size;
+            typeIds.put(type, id);
+            typeNames.add(Character.toLowerCase(name.charAt(0)) + name.substring(1));
+            if(queryTypes.contains(type)) queryTypeIds.add(id);
+        }
+        return id;
+    }
+
+    public enum Sort{
+        time(p -> p.time / 1000000f / p.seconds()),
+        instructions(p -> p.instructions / p.seconds()),
+        queries(p -> p.queries / p.seconds());
+
+        public static final Sort[] all = values();
+
+        private final Floatf<Profile> value;
+
+        Sort(Floatf<Profile> value){
+            this.value = value;
+        }
+
+        /** @return the value of a profile per second; time is in milliseconds. */
+        public float get(Profile profile){
+            return value.get(profile);
+        }
+    }
+
+    public static class Profile{
+        /** Timestamp at which profiling started, in milliseconds. */
+        public final long start = Time.millis();
+        /** Total instructions run, world queries made, and time taken in nanoseconds. */
+        public long instructions, queries, time;
+        /** Time taken (in nanoseconds) and amount of runs, indexed by instruction type. See {@link LProfiler#typeName(int)}. */
+        public long[] typeTime = new long[typeNames.size], typeCount = new long[typeNames.size];
+
+        /** @return seconds since profiling started; never zero. */
+        public float seconds(){
+            return Math.max(Time.timeSinceMillis(start) / 1000f, 0.001f);
+        }
+
+        /** @return the instruction type that took the most time, or -1 if nothing has run yet. */
+        public int slowestType(){
+            int best = -1;
+            for(int i = 0; i < typeTime.length; i++){
+                if(best == -1 || typeTime[i] > typeTime[best]) best = i;
+            }
+            return best;
+        }
+    }
+}
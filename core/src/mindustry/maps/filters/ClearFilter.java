@@ -20,6 +20,16 @@ public class ClearFilter extends GenerateFilter{
         };
     }
 
+    @Override
+    public boolean isPerTile(){
+        return true;
+    }
+
+    @Override
+    public boolean isParallel(){
+        return true;
+    }
+
     @Override
     public char icon(){
         return Iconc.blockSnow;
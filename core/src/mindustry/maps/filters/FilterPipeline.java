@@ -0,0 +1,145 @@
+package mindustry.maps.filters;
+
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.async.*;
+import mindustry.content.*;
+import mindustry.gen.*;
+import mindustry.maps.filters.GenerateFilter.*;
+import mindustry.world.*;
+import mindustry.world.blocks.environment.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Applies chains of generation filters. Consecutive per-tile filters (see {@link GenerateFilter#isPerTile()}) are fused into a single pass
+ * over a packed tile buffer: each tile goes through the whole run of filters at once, and is only written back to its {@link Tile} at the end of the run.
+ * Runs in which every filter is {@link GenerateFilter#isParallel() parallel} are processed in chunks of rows on multiple threads.
+ * Other filters are applied one at a time, exactly as before.
+ */
+public class FilterPipeline{
+    /** Amount of rows processed by a single task. */
+    private static final int chunkRows = 16;
+
+    /**
+     * Applies filters to tiles, in order. The result is the same as calling {@link GenerateFilter#apply(Tiles, GenerateInput)} for each filter.
+     * @param prepare called for each filter before it is applied, in order.
+     */
+    public static void apply(Tiles tiles, Seq<GenerateFilter> filters, GenerateInput in, @Nullable Cons<GenerateFilter> prepare){
+        long[] packed = null;
+
+        for(int i = 0; i < filters.size;){
+            GenerateFilter filter = filters.get(i);
+
+            if(!filter.isPerTile()){
+                if(prepare != null) prepare.get(filter);
+                in.begin(tiles.width, tiles.height, tiles::getn);
+                filter.apply(tiles, in);
+                i++;
+                continue;
+            }
+
+            int end = perTileRun(filters, i);
+            if(prepare != null){
+                for(int j = i; j < end; j++){
+                    prepare.get(filters.get(j));
+                }
+            }
+
+            if(packed == null) packed = new long[tiles.width * tiles.height];
+            for(int j = 0; j < packed.length; j++){
+                Tile tile = tiles.geti(j);
+                packed[j] = PackTile.get(tile.blockID(), tile.floorID(), tile.overlayID());
+            }
+
+            applyPerTile(filters, i, end, packed, tiles.width, tiles.height, 1, tiles.width, tiles.height, true, true);
+
+            //write back tiles that were changed by this run
+            for(int j = 0; j < packed.length; j++){
+                Tile tile = tiles.geti(j);
+                long p = packed[j];
+
+                if(PackTile.floor(p) != tile.floorID() || PackTile.overlay(p) != tile.overlayID()){
+                    tile.setFloor(content.block(PackTile.floor(p)).asFloor());
+                    tile.setOverlay(content.block(PackTile.overlay(p)));
+                }
+
+                if(PackTile.block(p) != tile.blockID()){
+                    tile.setBlock(content.block(PackTile.block(p)));
+                }
+            }
+
+            i = end;
+        }
+    }
+
+    /** @return the end index (exclusive) of the run of per-tile filters starting at this index. */
+    public static int perTileRun(Seq<GenerateFilter> filters, int start){
+        int end = start;
+        while(end < filters.size && filters.get(end).isPerTile()){
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Applies a run of per-tile filters to packed tiles (see {@link PackTile}), in place.
+     * @param from index of the first filter of the run.
+     * @param to end index (exclusive) of the run.
+     * @param scaling distance between packed tiles, in tiles. Packed tile (px, py) is passed to filters as tile (px * scaling, py * scaling).
+     * @param width width of the map the filters are applied to, which filters see as the input size.
+     * @param keepSynthetic whether synthetic blocks are kept, instead of being replaced by the output of a filter.
+     * @param clearOres whether ores are removed from floors without a surface after each filter, as {@link GenerateFilter#apply(Tiles, GenerateInput)} does.
+     */
+    public static void applyPerTile(Seq<GenerateFilter> filters, int from, int to, long[] packed, int packedWidth, int packedHeight, int scaling, int width, int height, boolean keepSynthetic, boolean clearOres){
+        boolean parallel = true;
+        for(int i = from; i < to; i++){
+            parallel &= filters.get(i).isParallel();
+        }
+
+        rows(packedHeight, parallel, (startRow, endRow) -> {
+            GenerateInput in = new GenerateInput();
+            in.begin(width, height, null);
+
+            for(int py = startRow; py < endRow; py++){
+                for(int px = 0; px < packedWidth; px++){
+                    int index = px + py * packedWidth;
+                    long tile = packed[index];
+                    Block block = content.block(PackTile.block(tile)), floor = content.block(PackTile.floor(tile)), overlay = content.block(PackTile.overlay(tile));
+
+                    for(int i = from; i < to; i++){
+                        in.set(px * scaling, py * scaling, block, floor, overlay);
+                        filters.get(i).apply(in);
+
+                        if(!keepSynthetic || (!block.synthetic() && !in.block.synthetic())){
+                            block = in.block;
+                        }
+
+                        if(clearOres){
+                            floor = in.floor.asFloor();
+                            overlay = !floor.asFloor().hasSurface() && in.overlay.asFloor().needsSurface && in.overlay instanceof OreBlock ? Blocks.air : in.overlay;
+                        }else{
+                            floor = in.floor;
+                            overlay = in.overlay;
+                        }
+                    }
+
+                    packed[index] = PackTile.get(block.id, floor.id, overlay.id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a task over all rows, split into chunks. If parallel, chunks are processed on multiple threads, including the calling thread.
+     * @param task receives the start and end row (exclusive) of a chunk.
+     */
+    static void rows(int height, boolean parallel, Intc2 task){
+        if(!parallel){
+            task.get(0, height);
+        }else{
+            Parallel.forChunks(height, chunkRows, task);
+        }
+    }
+}
@@ -21,14 +21,23 @@ public abstract class GenerateFilter implements Cloneable{
             //buffer of tiles used, each tile packed into a long struct
             long[] buffer = new long[tiles.width * tiles.height];
 
-            for(int i = 0; i < tiles.width * tiles.height; i++){
-                Tile tile = tiles.geti(i);
+            //tiles are only read here, so rows can be processed on multiple threads, each with its own input
+            FilterPipeline.rows(tiles.height, isParallel(), (startRow, endRow) -> {
+                GenerateInput input = in;
+                if(isParallel()){
+                    input = new GenerateInput();
+                    input.begin(in.width, in.height, in.buffer);
+                }
 
-                in.set(tile.x, tile.y, tile.block(), tile.floor(), tile.overlay());
-                apply(in);
+                for(int i = startRow * tiles.width; i < endRow * tiles.width; i++){
+                    Tile tile = tiles.geti(i);
 
-                buffer[i] = PackTile.get(in.block.id, in.floor.id, in.overlay.id);
-            }
+                    input.set(tile.x, tile.y, tile.block(), tile.floor(), tile.overlay());
+                    apply(input);
+
+                    buffer[i] = PackTile.get(input.block.id, input.floor.id, input.overlay.id);
+                }
+            });
 
             //write to buffer
             for(int i = 0; i < tiles.width * tiles.height; i++){
@@ -93,6 +102,19 @@ public abstract class GenerateFilter implements Cloneable{
         return false;
     }
 
+    /**
+     * @return whether {@link #apply(GenerateInput)} only depends on the input tile and never reads other tiles.
+     * Runs of such filters are applied to each tile together; see {@link FilterPipeline}.
+     */
+    public boolean isPerTile(){
+        return false;
+    }
+
+    /** @return whether {@link #apply(GenerateInput)} can be called from multiple threads at once, with separate inputs. */
+    public boolean isParallel(){
+        return false;
+    }
+
     /** @return whether this filter can *only* be used while generating the map, e.g. is not undoable. */
     public boolean isPost(){
         return false;
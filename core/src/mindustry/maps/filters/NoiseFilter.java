@@ -24,6 +24,16 @@ public class NoiseFilter extends GenerateFilter{
         };
     }
 
+    @Override
+    public boolean isPerTile(){
+        return true;
+    }
+
+    @Override
+    public boolean isParallel(){
+        return true;
+    }
+
     @Override
     public char icon(){
         return Iconc.blockPebbles;
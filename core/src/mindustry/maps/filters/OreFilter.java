@@ -23,6 +23,16 @@ public class OreFilter extends GenerateFilter{
         };
     }
 
+    @Override
+    public boolean isPerTile(){
+        return true;
+    }
+
+    @Override
+    public boolean isParallel(){
+        return true;
+    }
+
     @Override
     public char icon(){
         return Iconc.blockOreCopper;
@@ -25,6 +25,16 @@ public class RiverNoiseFilter extends GenerateFilter{
         };
     }
 
+    @Override
+    public boolean isPerTile(){
+        return true;
+    }
+
+    @Override
+    public boolean isParallel(){
+        return true;
+    }
+
     @Override
     public char icon(){
         return Iconc.blockShallowWater;
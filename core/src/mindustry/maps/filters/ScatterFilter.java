@@ -20,6 +20,12 @@ public class ScatterFilter extends GenerateFilter{
         };
     }
 
+    //not parallel, as chance() uses the shared seeded random of Mathf
+    @Override
+    public boolean isPerTile(){
+        return true;
+    }
+
     @Override
     public char icon(){
         return Iconc.blockBoulder;
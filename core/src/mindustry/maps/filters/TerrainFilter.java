@@ -26,6 +26,16 @@ public class TerrainFilter extends GenerateFilter{
         };
     }
 
+    @Override
+    public boolean isPerTile(){
+        return true;
+    }
+
+    @Override
+    public boolean isParallel(){
+        return true;
+    }
+
     @Override
     public char icon(){
         return Iconc.blockStoneWall;
@@ -847,18 +847,40 @@ public class ContentParser{
      * @return the content that was parsed
      */
     public Content parse(LoadedMod mod, String name, String json, Fi file, ContentType type) throws Exception{
-        if(contentTypes.isEmpty()){
-            init();
-        }
+        return parse(mod, name, read(json, file), file, type);
+    }
 
+    /**
+     * Reads the json or hjson of a content file into a tree, without creating any content.
+     * This does not touch any state of the parser, so it can be called from any thread.
+     * @param json the json to read
+     * @param file file that this json was read from
+     */
+    public static JsonValue read(String json, Fi file){
         //remove extra # characters to make it valid json... apparently some people have *unquoted* # characters in their json
         if(file.extension().equals("json")){
             json = json.replace("#", "\\#");
         }
 
+        return new JsonReader().parse(Jval.read(json).toString(Jformat.plain));
+    }
+
+    /**
+     * Parses content from a json tree created by {@link #read(String, Fi)}.
+     * @param name the name of the file without its extension
+     * @param tree the json tree to parse
+     * @param type the type of content this is
+     * @param file file that this content is being parsed from
+     * @return the content that was parsed
+     */
+    public Content parse(LoadedMod mod, String name, JsonValue tree, Fi file, ContentType type) throws Exception{
+        if(contentTypes.isEmpty()){
+            init();
+        }
+
         currentMod = mod;
 
-        JsonValue value = parser.fromJson(null, Jval.read(json).toString(Jformat.plain));
+        JsonValue value = parser.readValue((Class<JsonValue>)null, null, tree);
 
         if(!parsers.containsKey(type)){
             throw new SerializationException("No parsers for content type '" + type + "'");
@@ -14,6 +14,7 @@ import arc.util.*;
 import arc.util.io.*;
 import arc.util.serialization.*;
 import arc.util.serialization.Jval.*;
+import mindustry.async.*;
 import mindustry.core.*;
 import mindustry.ctype.*;
 import mindustry.game.EventType.*;
@@ -710,6 +711,10 @@ public class Mods implements Loadable{
             final ContentType type;
             final Fi file;
             final LoadedMod mod;
+            //result of the read phase: either a tree or the error that prevented reading it
+            JsonValue tree;
+            Throwable error;
+            long readNanos;
 
             public LoadRun(ContentType type, Fi file, LoadedMod mod){
                 this.type = type;
@@ -768,11 +773,38 @@ public class Mods implements Loadable{
             runs.addAll(unorderedContent.sort());
         }
 
+        if(runs.isEmpty()){
+            parser.finishParsing();
+            return;
+        }
+
+        long start = Time.nanos();
+
+        //files are read into json trees on multiple threads; this does not create any content
+        Parallel.forEach(runs.size, i -> {
+            LoadRun l = runs.get(i);
+            long readStart = Time.nanos();
+            try{
+                l.tree = ContentParser.read(l.file.readString("UTF-8"), l.file);
+            }catch(Throwable e){
+                l.error = e;
+            }
+            l.readNanos = Time.timeSinceNanos(readStart);
+        });
+
+        long readTime = Time.timeSinceNanos(start);
+        ObjectMap<LoadedMod, long[]> modTimes = new ObjectMap<>();
+
+        //trees are bound to content on the main thread, in the same order as the files were found
         for(LoadRun l : runs){
+            long[] times = modTimes.get(l.mod, () -> new long[3]);
+            long bindStart = Time.nanos();
             Content current = content.getLastAdded();
             try{
+                if(l.error != null) throw l.error;
+
                 //this binds the content but does not load it entirely
-                Content loaded = parser.parse(l.mod, l.file.nameWithoutExtension(), l.file.readString("UTF-8"), l.file, l.type);
+                Content loaded = parser.parse(l.mod, l.file.nameWithoutExtension(), l.tree, l.file, l.type);
                 Log.debug("[@] Loaded '@'.", l.mod.meta.name, (loaded instanceof UnlockableContent u ? u.localizedName : loaded));
             }catch(Throwable e){
                 if(current != content.getLastAdded() && content.getLastAdded() != null){
@@ -782,10 +814,25 @@ public class Mods implements Loadable{
                     parser.markError(error, l.mod, l.file, e);
                 }
             }
+            l.tree = null;
+
+            times[0] ++;
+            times[1] += l.readNanos;
+            times[2] += Time.timeSinceNanos(bindStart);
         }
 
+        long finishStart = Time.nanos();
         //this finishes parsing content fields
         parser.finishParsing();
+        long finishTime = Time.timeSinceNanos(finishStart);
+
+        for(LoadedMod mod : orderedMods()){
+            long[] times = modTimes.get(mod);
+            if(times != null){
+                Log.info("[@] Loaded @ content files: @ms reading, @ms binding.", mod.meta.name, times[0], times[1] / 1_000_000, times[2] / 1_000_000);
+            }
+        }
+        Log.info("Time to load mod content: @ms (@ms reading on @ threads, @ms finishing)", Time.timeSinceNanos(start) / 1_000_000, readTime / 1_000_000, Math.min(runs.size, OS.cores), finishTime / 1_000_000);
     }
 
     public void handleContentError(Content content, Throwable error){
@@ -511,8 +511,24 @@ public class Administration{
         autosave = new Config("autosave", "Whether the periodically save the map when playing.", false),
         autosaveAmount = new Config("autosaveAmount", "The maximum amount of autosaves. Older ones get replaced.", 10),
         autosaveSpacing = new Config("autosaveSpacing", "Spacing between autosaves in seconds.", 60 * 5),
+        asyncAutosave = new Config("asyncAutosave", "Whether autosaves are compressed and written to disk on another thread.", true),
+        indexedSaves = new Config("indexedSaves", "Whether autosaves and the 'save' command write indexed saves, which are faster to compress and load. Builds without indexed save support can't load these files.", false),
         debug = new Config("debug", "Enable debug logging.", false, () -> Log.level = debug() ? LogLevel.debug : LogLevel.info),
         snapshotInterval = new Config("snapshotInterval", "Client entity snapshot interval in ms.", 200),
+        syncInterest = new Config("syncInterest", "Whether entities far away from a player's view are synced less often.", false),
+        syncFarInterval = new Config("syncFarInterval", "When syncInterest is enabled, the amount of snapshots between updates of entities far away from a player's view.", 5),
+        worldCacheTime = new Config("worldCacheTime", "Milliseconds for which compressed world data is shared by joining players. -1 to disable.", 500),
+        parallelSnapshots = new Config("parallelSnapshots", "Whether entity snapshots of different players are encoded on multiple threads.", false),
+        deltaSnapshots = new Config("deltaSnapshots", "Whether entity snapshots only send data that changed since the last snapshot each client received.", false),
+        spatialGrid = new Config("spatialGrid", "Whether unit and bullet spatial queries use a uniform grid instead of quadtrees. Team unit trees are then only built for code that still asks for them.", false, () -> {
+            float size = spatialGrid() ? Vars.tilesize * 4f : 0f;
+            Groups.unit.useGrid(size);
+            Groups.bullet.useGrid(size);
+        }),
+        parallelBuildings = new Config("parallelBuildings", "Whether thread-safe buildings (e.g. conveyors) are updated in parallel, split by map region. Experimental.", false),
+        parallelPhysics = new Config("parallelPhysics", "Whether unit collisions are resolved on multiple threads, with a solver that does not depend on processing order. Applies to maps loaded after this is changed. Experimental.", false),
+        parallelPower = new Config("parallelPower", "Whether power graphs are updated in parallel. Only graphs made of built-in blocks with plain power consumers are; graphs with blocks of mods or dynamic/conditional power use are still updated one at a time. Experimental.", false),
+        compileLogic = new Config("compileLogic", "Whether processor code is compiled into specialized instructions when loaded. Applies to code loaded after this is changed.", false),
         autoPause = new Config("autoPause", "Whether the game should pause when nobody is online.", false),
         roundExtraTime = new Config("roundExtraTime", "Time before loading a new map after the gameover, in seconds.", 12),
         maxLogLength = new Config("maxLogLength", "The Maximum log file size, in bytes.", 1024 * 1024 * 5);
@@ -584,6 +600,10 @@ public class Administration{
         private static boolean debug(){
             return Config.debug.bool();
         }
+
+        private static boolean spatialGrid(){
+            return Config.spatialGrid.bool();
+        }
     }
 
     public static class PlayerInfo{
@@ -33,6 +33,9 @@ public abstract class NetConnection{
     /** Handles packet spam rate limits. */
     public Ratekeeper packetRate = new Ratekeeper();
 
+    /** Entity snapshot baselines; only used when delta snapshots are enabled. */
+    public @Nullable SnapshotDeltas.Sender snapshotDeltas;
+
     public boolean hasConnected, hasBegunConnecting, hasDisconnected;
     public float viewWidth, viewHeight, viewX, viewY;
 
@@ -0,0 +1,233 @@
+package mindustry.net;
+
+import arc.struct.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Delta compression for entity snapshots. Each entity is encoded against the last version of its sync data that the client
+ * has acknowledged receiving, so entities that have not changed only cost a few bytes.
+ * Entities without a usable baseline are always written in full, and snapshot packets can be lost without any ill effects.
+ * Packets are only acknowledged once they have been decoded completely; if the client is missing the baseline of an entity anyway,
+ * it asks for that entity to be resent in full.
+ */
+public class SnapshotDeltas{
+    /** Amount of recent packets that are remembered on both sides. Baselines older than this are never used. */
+    public static final int window = 64;
+    /** Baselines this close to the end of the window are not used, as the client may be about to discard them. */
+    public static final int windowMargin = 8;
+
+    static final byte modeFull = 0, modeDelta = 1, modeSame = 2;
+
+    /** Server-side state, kept for each connection. */
+    public static class Sender{
+        private final SentPacket[] sent = new SentPacket[window];
+        private final IntMap<Baseline> baselines = new IntMap<>();
+        private int packet;
+
+        /** Bytes written in total, and bytes that would have been written without delta compression. */
+        public long written, uncompressed;
+
+        /** @return the ID of the current packet. */
+        public int packet(){
+            return packet;
+        }
+
+        /** Starts a new packet. @return its ID. */
+        public int begin(){
+            packet ++;
+
+            //discard baselines that can no longer be used
+            if(packet % window == 0){
+                var it = baselines.values().iterator();
+                while(it.hasNext()){
+                    if(packet - it.next().packet >= window - windowMargin){
+                        it.remove();
+                    }
+                }
+            }
+
+            int slot = packet % window;
+            if(sent[slot] == null) sent[slot] = new SentPacket();
+            sent[slot].reset(packet);
+            return packet;
+        }
+
+        /** Writes the sync data of an entity to the current packet. The data array must not be modified afterwards. */
+        public void write(DataOutputStream out, int id, byte[] data) throws IOException{
+            Baseline base = baselines.get(id);
+
+            if(base != null && packet - base.packet < window - windowMargin && base.data.length == data.length){
+                if(Arrays.equals(base.data, data)){
+                    out.writeByte(modeSame);
+                    out.writeInt(base.packet);
+                    written += 5;
+                }else{
+                    out.writeByte(modeDelta);
+                    out.writeInt(base.packet);
+                    out.writeShort(data.length);
+
+                    //bitmask of changed bytes, followed by the new values of those bytes
+                    for(int i = 0; i < data.length; i += 8){
+                        int mask = 0;
+                        for(int j = i; j < Math.min(i + 8, data.length); j++){
+                            if(data[j] != base.data[j]) mask |= 1 << (j - i);
+                        }
+                        out.writeByte(mask);
+                    }
+
+                    int changed = 0;
+                    for(int i = 0; i < data.length; i++){
+                        if(data[i] != base.data[i]){
+                            out.writeByte(data[i]);
+                            changed ++;
+                        }
+                    }
+                    written += 7 + (data.length + 7) / 8 + changed;
+                }
+            }else{
+                out.writeByte(modeFull);
+                out.writeShort(data.length);
+                out.write(data);
+                written += 3 + data.length;
+            }
+
+            uncompressed += data.length;
+            sent[packet % window].add(id, data);
+        }
+
+        /** Called when the client confirms that it received a packet. Its data is used as a baseline from now on. */
+        public void ack(int id){
+            if(id <= 0 || id > packet || packet - id >= window) return;
+
+            SentPacket sent = this.sent[id % window];
+            if(sent == null || sent.id != id) return;
+
+            for(int i = 0; i < sent.ids.size; i++){
+                int entity = sent.ids.items[i];
+                Baseline base = baselines.get(entity);
+                if(base == null){
+                    baselines.put(entity, base = new Baseline());
+                }else if(base.packet >= id){
+                    continue;
+                }
+                base.packet = id;
+                base.data = sent.data.get(i);
+            }
+
+            //each packet can only be acknowledged once
+            sent.reset(-1);
+        }
+
+        /** Called when the client is missing the baseline of an entity. It is written in full until a newer packet is acknowledged. */
+        public void resend(int id){
+            baselines.remove(id);
+        }
+    }
+
+    /** Client-side state. */
+    public static class Receiver{
+        private final int[] ids = new int[window];
+        private final IntMap<byte[]>[] received = new IntMap[window];
+        /** Packets that have been decoded since the last acknowledgement was sent. */
+        public final IntSeq acks = new IntSeq();
+        /** Entities that could not be decoded since the last acknowledgement was sent, as their baseline was missing. */
+        public final IntSeq missing = new IntSeq();
+
+        public Receiver(){
+            Arrays.fill(ids, -1);
+            for(int i = 0; i < window; i++){
+                received[i] = new IntMap<>();
+            }
+        }
+
+        /** Starts reading a packet. */
+        public void begin(int packet){
+            int slot = packet % window;
+            ids[slot] = packet;
+            received[slot].clear();
+        }
+
+        /** Finishes reading a packet. Only packets that have been read completely are acknowledged. */
+        public void end(int packet){
+            acks.add(packet);
+        }
+
+        /**
+         * Reads the sync data of an entity in the current packet.
+         * @return the full sync data, or null if its baseline has already been discarded. In that case, the entity is added to {@link #missing}.
+         */
+        public byte[] read(DataInputStream in, int packet, int id) throws IOException{
+            byte mode = in.readByte();
+            byte[] data;
+
+            if(mode == modeFull){
+                data = new byte[in.readUnsignedShort()];
+                in.readFully(data);
+            }else{
+                byte[] base = baseline(in.readInt(), id);
+
+                if(mode == modeSame){
+                    data = base;
+                }else{
+                    int length = in.readUnsignedShort();
+                    byte[] masks = new byte[(length + 7) / 8];
+                    in.readFully(masks);
+
+                    data = base == null || base.length != length ? null : base.clone();
+                    for(int i = 0; i < length; i++){
+                        if((masks[i / 8] & (1 << (i % 8))) != 0){
+                            byte value = in.readByte();
+                            if(data != null) data[i] = value;
+                        }
+                    }
+                }
+            }
+
+            if(data != null){
+                received[packet % window].put(id, data);
+            }else if(!missing.contains(id)){
+                missing.add(id);
+            }
+            return data;
+        }
+
+        /** Discards all received data. */
+        public void reset(){
+            Arrays.fill(ids, -1);
+            for(var map : received){
+                map.clear();
+            }
+            acks.clear();
+            missing.clear();
+        }
+
+        private byte[] baseline(int packet, int id){
+            int slot = packet % window;
+            return packet >= 0 && ids[slot] == packet ? received[slot].get(id) : null;
+        }
+    }
+
+    static class Baseline{
+        int packet;
+        byte[] data;
+    }
+
+    static class SentPacket{
+        int id = -1;
+        final IntSeq ids = new IntSeq();
+        final Seq<byte[]> data = new Seq<>(byte[].class);
+
+        void reset(int id){
+            this.id = id;
+            ids.clear();
+            data.clear();
+        }
+
+        void add(int entity, byte[] bytes){
+            ids.add(entity);
+            data.add(bytes);
+        }
+    }
+}
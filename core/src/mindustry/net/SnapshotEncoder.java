@@ -0,0 +1,265 @@
+package mindustry.net;
+
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+import mindustry.async.*;
+import mindustry.gen.*;
+
+import java.io.*;
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Encodes entity snapshots for many connections at once. The sync data of every entity is captured a single time per frame on the main thread;
+ * snapshots are then encoded from the captured data only, so connections can be encoded on multiple threads without touching any entity.
+ * Packets are still sent from the main thread.
+ */
+public class SnapshotEncoder{
+    /** Entities this close to a player's view are synced in every snapshot, in world units. */
+    public static final float viewMargin = tilesize * 10f;
+
+    /** Packets are split once they grow larger than this, in bytes. */
+    private final int maxSize;
+
+    private final ReusableByteOutStream captureStream = new ReusableByteOutStream();
+    private final Writes captureWrites = new Writes(new DataOutputStream(captureStream));
+
+    //entity state from the last capture, in Groups.sync order
+    private int size;
+    private Syncc[] entities = new Syncc[64];
+    private int[] ids = new int[64], teams = new int[64], offsets = new int[65];
+    private byte[] types = new byte[64];
+    private float[] xs = new float[64], ys = new float[64];
+    private boolean[] positioned = new boolean[64];
+    private byte[][] syncData = new byte[64][];
+    private boolean deltas, interest;
+    private int farInterval;
+
+    /** Team ID -> indices of entities hidden from that team. */
+    private final IntMap<Bits> hidden = new IntMap<>();
+    private final IntSet hiddenTeams = new IntSet();
+
+    private final Seq<Output> outputs = new Seq<>(), free = new Seq<>();
+
+    public SnapshotEncoder(int maxSize){
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Captures the sync data of all entities. Must be called on the main thread, before any snapshots are queued.
+     * @param deltas whether snapshots are delta-compressed; see {@link SnapshotDeltas}.
+     * @param interest whether entities far away from a player's view are synced less often.
+     */
+    public void capture(boolean deltas, boolean interest, int farInterval) throws IOException{
+        this.deltas = deltas;
+        this.interest = interest;
+        this.farInterval = Math.max(farInterval, 1);
+
+        captureStream.reset();
+        size = 0;
+        ensureCapacity(Groups.sync.size());
+
+        for(Syncc entity : Groups.sync){
+            int i = size++;
+            entities[i] = entity;
+            ids[i] = entity.id();
+            types[i] = (byte)entity.classId();
+            teams[i] = entity instanceof Teamc t ? t.team().id : -1;
+            if(positioned[i] = entity instanceof Posc){
+                xs[i] = ((Posc)entity).x();
+                ys[i] = ((Posc)entity).y();
+            }
+
+            offsets[i] = captureStream.size();
+            entity.writeSync(captureWrites);
+            offsets[i + 1] = captureStream.size();
+
+            //delta baselines are kept around, so they need their own arrays
+            syncData[i] = deltas ? Arrays.copyOfRange(captureStream.getBytes(), offsets[i], offsets[i + 1]) : null;
+        }
+    }
+
+    /** Queues an entity snapshot for a player. Main thread only. */
+    public void queue(Player player){
+        var con = player.con;
+        int team = player.team().id;
+
+        //all implementations of isSyncHidden only depend on the team of the player, so it is only checked once per team
+        if(hiddenTeams.add(team)){
+            Bits bits = hidden.get(team);
+            if(bits == null){
+                hidden.put(team, bits = new Bits(size));
+            }else{
+                bits.clear();
+            }
+            for(int i = 0; i < size; i++){
+                if(entities[i].isSyncHidden(player)) bits.set(i);
+            }
+        }
+
+        if(deltas){
+            if(con.snapshotDeltas == null) con.snapshotDeltas = new SnapshotDeltas.Sender();
+        }else{
+            con.snapshotDeltas = null;
+        }
+
+        Output out = free.isEmpty() ? new Output() : free.pop();
+        out.player = player;
+        outputs.add(out);
+    }
+
+    /**
+     * Encodes all queued snapshots. Nothing may modify the connections of queued players while this runs.
+     * @param parallel whether to encode on multiple threads. The calling thread is always used as well.
+     */
+    public void encode(boolean parallel){
+        int size = outputs.size;
+        if(size == 0) return;
+
+        if(!parallel){
+            for(int i = 0; i < size; i++){
+                encodeOutput(outputs.get(i));
+            }
+        }else{
+            Parallel.forEach(size, i -> encodeOutput(outputs.get(i)));
+        }
+    }
+
+    /** @return snapshots that have been encoded, in the order they were queued. */
+    public Seq<Output> outputs(){
+        return outputs;
+    }
+
+    /** Frees all outputs and references to entities. Must be called after the encoded snapshots have been sent. */
+    public void end(){
+        for(var out : outputs){
+            out.reset();
+            free.add(out);
+        }
+        outputs.clear();
+        hiddenTeams.clear();
+        Arrays.fill(entities, 0, size, null);
+        Arrays.fill(syncData, 0, size, null);
+        size = 0;
+    }
+
+    private void encodeOutput(Output out){
+        try{
+            encode(out);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void encode(Output out) throws IOException{
+        Player player = out.player;
+        NetConnection con = player.con;
+        SnapshotDeltas.Sender sender = deltas ? con.snapshotDeltas : null;
+        Bits hidden = this.hidden.get(player.team().id);
+        DataOutputStream data = out.data;
+        byte[] bytes = captureStream.getBytes();
+        int sent = 0, packet = sender == null ? 0 : sender.begin();
+
+        out.stream.reset();
+
+        for(int i = 0; i < size; i++){
+            if(hidden.get(i)){
+                out.hidden.add(ids[i]);
+                continue;
+            }
+
+            if(interest && !relevant(player, i)){
+                continue;
+            }
+
+            data.writeInt(ids[i]);
+            data.writeByte(types[i]);
+            if(sender != null){
+                sender.write(data, ids[i], syncData[i]); //write changes since the last acknowledged snapshot
+            }else{
+                data.write(bytes, offsets[i], offsets[i + 1] - offsets[i]);
+            }
+
+            sent++;
+
+            if(out.stream.size() > maxSize){
+                out.add(sent, packet);
+                if(sender != null) packet = sender.begin();
+                sent = 0;
+            }
+        }
+
+        if(sent > 0){
+            out.add(sent, packet);
+        }
+    }
+
+    /**
+     * Entities near the player's view are synced every snapshot. Entities further away are synced every second snapshot if
+     * they are within a view's distance or on the same team, and every farInterval snapshots otherwise.
+     * Updates of far away entities are staggered by ID, so they do not all arrive in the same snapshot.
+     * @return whether an entity should be included in the current snapshot of this player.
+     */
+    private boolean relevant(Player player, int i){
+        var con = player.con;
+        if(ids[i] == player.id() || !positioned[i] || con.viewWidth <= 0f || con.viewHeight <= 0f) return true;
+
+        //distance from the edge of the view rectangle
+        float
+        dx = Math.max(Math.abs(xs[i] - con.viewX) - con.viewWidth / 2f, 0f),
+        dy = Math.max(Math.abs(ys[i] - con.viewY) - con.viewHeight / 2f, 0f),
+        dst = Math.max(dx, dy);
+
+        if(dst <= viewMargin) return true;
+
+        int interval = dst <= Math.max(con.viewWidth, con.viewHeight) || teams[i] == player.team().id ? 2 : farInterval;
+        return (con.snapshotsSent + ids[i]) % interval == 0;
+    }
+
+    private void ensureCapacity(int amount){
+        if(amount <= entities.length) return;
+
+        int cap = Math.max(amount, entities.length * 7 / 4);
+        entities = Arrays.copyOf(entities, cap);
+        ids = Arrays.copyOf(ids, cap);
+        teams = Arrays.copyOf(teams, cap);
+        offsets = Arrays.copyOf(offsets, cap + 1);
+        types = Arrays.copyOf(types, cap);
+        xs = Arrays.copyOf(xs, cap);
+        ys = Arrays.copyOf(ys, cap);
+        positioned = Arrays.copyOf(positioned, cap);
+        syncData = Arrays.copyOf(syncData, cap);
+    }
+
+    /** The encoded entity snapshot of a single player. Pooled; do not keep references to it after {@link #end()}. */
+    public static class Output{
+        public Player player;
+        /** Entity data of each packet. */
+        public final Seq<byte[]> packets = new Seq<>(byte[].class);
+        /** Amount of entities in each packet, and the delta packet IDs if delta snapshots are enabled. */
+        public final IntSeq amounts = new IntSeq(), packetIds = new IntSeq();
+        /** IDs of entities hidden from this player. */
+        public final IntSeq hidden = new IntSeq();
+
+        final ReusableByteOutStream stream = new ReusableByteOutStream();
+        final DataOutputStream data = new DataOutputStream(stream);
+
+        void add(int amount, int packet){
+            packets.add(stream.toByteArray());
+            amounts.add(amount);
+            packetIds.add(packet);
+            stream.reset();
+        }
+
+        void reset(){
+            player = null;
+            packets.clear();
+            amounts.clear();
+            packetIds.clear();
+            hidden.clear();
+            stream.reset();
+        }
+    }
+}
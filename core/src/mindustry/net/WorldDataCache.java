@@ -0,0 +1,288 @@
+package mindustry.net;
+
+import arc.*;
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+import mindustry.gen.*;
+import mindustry.net.Administration.*;
+import mindustry.net.Packets.*;
+
+import java.io.*;
+import java.util.zip.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Shares compressed world data between players that join at around the same time. The world is written once on the main thread
+ * and compressed on another thread; only the small section containing the joining player is compressed separately for each player.
+ * The sections are joined into a single regular zlib stream, so clients read it exactly like world data that was not cached.
+ * <p>
+ * Cached data is only sent over connections that were already open when it was written. Those connections have received every
+ * packet sent since then, which clients apply after loading the world, so the cached world is never missing any changes.
+ */
+public class WorldDataCache{
+    private static final int level = Deflater.BEST_SPEED;
+
+    /** Amount of players that were sent existing cached data, and amount of times the world was written to the cache. */
+    public int hits, misses;
+    /** Time taken to write the world on the main thread and to compress it, in milliseconds. Only for the last cached world. */
+    public long lastWriteTime, lastCompressTime;
+
+    private @Nullable Entry current;
+    private final Deflater playerDeflater = new Deflater(level, true);
+    private final ReusableByteOutStream playerStream = new ReusableByteOutStream();
+    private final DataOutputStream playerOutput = new DataOutputStream(playerStream);
+    private final byte[] buffer = new byte[8192];
+
+    /** @return whether world data can be cached. Sync flushing is not available on older Android versions. */
+    public static boolean enabled(){
+        return !mobile && Config.worldCacheTime.num() >= 0;
+    }
+
+    /** Sends world data to a player. If the cached world is still being compressed, the data is sent once that is done. Main thread only. */
+    public void send(Player player){
+        var con = player.con;
+        Entry entry = current;
+
+        if(entry == null || entry.stale || !entry.connections.contains(con) || Time.timeSinceMillis(entry.time) > Config.worldCacheTime.num()){
+            current = entry = capture();
+            misses ++;
+        }else{
+            hits ++;
+        }
+
+        if(entry.done){
+            write(player, entry);
+        }else{
+            entry.waiting.add(player);
+        }
+    }
+
+    /** Writes and compresses world data for a single player, without using the cache. */
+    public static void sendUncached(Player player){
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DeflaterOutputStream def = new FastDeflaterOutputStream(stream);
+        NetworkIO.writeWorld(player, def);
+        WorldStream data = new WorldStream();
+        data.stream = new ByteArrayInputStream(stream.toByteArray());
+        player.con.sendStream(data);
+
+        Log.debug("Packed @ bytes of world data.", stream.size());
+    }
+
+    /** Marks the cached world as outdated. Players waiting for it are sent a newly written world instead. */
+    public void invalidate(){
+        if(current != null){
+            current.stale = true;
+            current = null;
+        }
+    }
+
+    /** Stops the cached world from being sent to a connection, e.g. because its client discarded all packets it received before. */
+    public void invalidate(NetConnection con){
+        if(current != null){
+            current.connections.remove(con);
+        }
+    }
+
+    private Entry capture(){
+        Entry entry = new Entry();
+        long start = Time.millis();
+        entry.time = start;
+
+        for(var con : net.getConnections()){
+            entry.connections.add(con);
+        }
+
+        try{
+            ByteArrayOutputStream header = new ByteArrayOutputStream(), world = new ByteArrayOutputStream();
+            NetworkIO.writeWorldHeader(new DataOutputStream(header));
+            NetworkIO.writeWorldData(new DataOutputStream(world));
+            byte[] headerBytes = header.toByteArray(), worldBytes = world.toByteArray();
+
+            lastWriteTime = Time.timeSinceMillis(start);
+
+            mainExecutor.submit(() -> {
+                try{
+                    long compressStart = Time.millis();
+                    compress(entry, headerBytes, worldBytes);
+                    long compressTime = Time.timeSinceMillis(compressStart);
+
+                    Core.app.post(() -> {
+                        lastCompressTime = compressTime;
+                        finish(entry);
+                    });
+                }catch(Throwable t){
+                    Core.app.post(() -> {
+                        Log.err("Failed to compress world data", t);
+                        entry.failed = true;
+                        if(current == entry) current = null;
+                        finish(entry);
+                    });
+                }
+            });
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Writes world data for a player in the same format as cached data, but entirely on the calling thread, without caching it.
+     * The result inflates to the same bytes as {@link NetworkIO#writeWorld(Player, OutputStream)}. Main thread only.
+     */
+    public byte[] writeNow(Player player) throws IOException{
+        ByteArrayOutputStream header = new ByteArrayOutputStream(), world = new ByteArrayOutputStream();
+        NetworkIO.writeWorldHeader(new DataOutputStream(header));
+        NetworkIO.writeWorldData(new DataOutputStream(world));
+
+        Entry entry = new Entry();
+        compress(entry, header.toByteArray(), world.toByteArray());
+        return assemble(player, entry);
+    }
+
+    /** Compresses the sections that are shared between players. */
+    private static void compress(Entry entry, byte[] headerBytes, byte[] worldBytes){
+        Deflater def = new Deflater(level, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(worldBytes.length / 4);
+
+        entry.header = deflate(def, headerBytes, false, out, new byte[8192]);
+        entry.headerAdler = adler(headerBytes);
+
+        entry.world = deflate(def, worldBytes, true, out, new byte[8192]);
+        entry.worldAdler = adler(worldBytes);
+        entry.worldLength = worldBytes.length;
+
+        def.end();
+    }
+
+    private void finish(Entry entry){
+        entry.done = true;
+
+        for(var player : entry.waiting){
+            if(player.con == null || !player.con.isConnected() || !state.isGame()) continue;
+
+            if(entry.failed){
+                sendUncached(player);
+            }else if(entry.stale){
+                send(player);
+            }else{
+                write(player, entry);
+            }
+        }
+        entry.waiting.clear();
+    }
+
+    private void write(Player player, Entry entry){
+        try{
+            byte[] out = assemble(player, entry);
+
+            WorldStream data = new WorldStream();
+            data.stream = new ByteArrayInputStream(out);
+            player.con.sendStream(data);
+
+            Log.debug("Sent @ bytes of cached world data.", out.length);
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Joins the compressed sections of an entry and the section of a player into a zlib stream. */
+    private byte[] assemble(Player player, Entry entry) throws IOException{
+        playerStream.reset();
+        NetworkIO.writeWorldPlayer(player, playerOutput);
+
+        ByteArrayOutputStream playerData = new ByteArrayOutputStream(64);
+        byte[] compressed = deflate(playerDeflater, playerStream.toByteArray(), false, playerData, buffer);
+
+        //zlib stream: header, all sections as raw deflate data, checksum of everything
+        byte[] out = new byte[2 + entry.header.length + compressed.length + entry.world.length + 4];
+        out[0] = 0x78;
+        out[1] = 0x01;
+        int offset = 2;
+        System.arraycopy(entry.header, 0, out, offset, entry.header.length);
+        offset += entry.header.length;
+        System.arraycopy(compressed, 0, out, offset, compressed.length);
+        offset += compressed.length;
+        System.arraycopy(entry.world, 0, out, offset, entry.world.length);
+        offset += entry.world.length;
+
+        int adler = adlerCombine(adlerCombine(entry.headerAdler, adler(playerStream.getBytes(), playerStream.size()), playerStream.size()), entry.worldAdler, entry.worldLength);
+        out[offset] = (byte)(adler >>> 24);
+        out[offset + 1] = (byte)(adler >>> 16);
+        out[offset + 2] = (byte)(adler >>> 8);
+        out[offset + 3] = (byte)adler;
+        return out;
+    }
+
+    /**
+     * Compresses data as a sequence of raw deflate blocks. Unless this is the last section, the output ends on a byte boundary
+     * without a final block, so more sections can be appended after it.
+     */
+    private static byte[] deflate(Deflater def, byte[] data, boolean last, ByteArrayOutputStream out, byte[] buffer){
+        def.reset();
+        out.reset();
+        def.setInput(data);
+
+        if(last){
+            def.finish();
+            while(!def.finished()){
+                out.write(buffer, 0, def.deflate(buffer));
+            }
+        }else{
+            int written;
+            do{
+                written = def.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, written);
+            }while(written == buffer.length);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static int adler(byte[] data){
+        return adler(data, data.length);
+    }
+
+    private static int adler(byte[] data, int length){
+        Adler32 adler = new Adler32();
+        adler.update(data, 0, length);
+        return (int)adler.getValue();
+    }
+
+    /** @return the Adler-32 checksum of two concatenated sections, from the checksums of each. See adler32_combine in zlib. */
+    private static int adlerCombine(int adler1, int adler2, int length2){
+        final long base = 65521;
+        long rem = (length2 & 0xffffffffL) % base;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (rem * sum1) % base;
+        sum1 += (adler2 & 0xffff) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - rem;
+        if(sum1 >= base) sum1 -= base;
+        if(sum1 >= base) sum1 -= base;
+        if(sum2 >= base << 1) sum2 -= base << 1;
+        if(sum2 >= base) sum2 -= base;
+        return (int)(sum1 | (sum2 << 16));
+    }
+
+    static class Entry{
+        /** Time at which the world was written. */
+        long time;
+        /** Connections that were open when the world was written. */
+        final ObjectSet<NetConnection> connections = new ObjectSet<>();
+        /** Players waiting for compression to finish. */
+        final Seq<Player> waiting = new Seq<>();
+        /** Whether compression is done. Main thread only. */
+        boolean done;
+        /** Whether this data must not be sent anymore. */
+        boolean stale;
+        /** Whether compression failed. Waiting players are sent uncached data instead. */
+        boolean failed;
+
+        //compressed sections, their checksums and the uncompressed length of the world; set by the compression thread before done is set
+        byte[] header, world;
+        int headerAdler, worldAdler, worldLength;
+    }
+}
@@ -23,6 +23,7 @@ import mindustry.game.EventType.*;
 import mindustry.gen.*;
 import mindustry.graphics.*;
 import mindustry.input.*;
+import mindustry.logic.*;
 import mindustry.ui.*;
 
 import java.io.*;
@@ -456,6 +457,7 @@ public class SettingsMenuDialog extends BaseDialog{
             graphics.checkPref("mouseposition", false);
         }
         graphics.checkPref("fps", false);
+        graphics.checkPref("logicprofiler", false, val -> LProfiler.enabled = val);
         graphics.checkPref("playerindicators", true);
         graphics.checkPref("indicators", true);
         graphics.checkPref("showweather", true);
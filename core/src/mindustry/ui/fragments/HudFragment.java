@@ -24,6 +24,7 @@ import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.graphics.*;
 import mindustry.input.*;
+import mindustry.logic.*;
 import mindustry.net.Packets.*;
 import mindustry.type.*;
 import mindustry.ui.*;
@@ -390,6 +391,58 @@ public class HudFragment{
             t.add("@saving").style(Styles.outlineLabel);
         });
 
+        //logic profiler
+        LProfiler.enabled = Core.settings.getBool("logicprofiler");
+        parent.fill(t -> {
+            t.name = "logicprofiler";
+            t.left().visible(() -> Core.settings.getBool("logicprofiler") && shown);
+            t.table(Styles.black6, c -> {
+                LProfiler.Sort[] sort = {LProfiler.Sort.time};
+                Interval timer = new Interval();
+                Runnable[] rebuild = {null};
+
+                rebuild[0] = () -> {
+                    c.clearChildren();
+                    c.defaults().pad(2f);
+
+                    c.add("@logicprofiler").color(Pal.accent).colspan(2).left();
+                    //each value column can be clicked to sort by it
+                    for(LProfiler.Sort s : LProfiler.Sort.all){
+                        c.button("@logicprofiler." + s.name(), Styles.flatTogglet, () -> {
+                            sort[0] = s;
+                            rebuild[0].run();
+                        }).checked(b -> sort[0] == s).minWidth(70f).height(30f);
+                    }
+                    c.row();
+
+                    var list = LProfiler.sorted(sort[0]);
+                    if(list.isEmpty()){
+                        c.add("@logicprofiler.none").color(Color.lightGray).colspan(5).left();
+                        return;
+                    }
+
+                    for(int i = 0; i < Math.min(list.size, 10); i++){
+                        var build = list.get(i);
+                        var profile = build.executor.profile;
+
+                        c.image(build.block.uiIcon).size(iconSmall);
+                        c.add(build.tileX() + ", " + build.tileY()).left();
+                        c.add(Strings.fixed(LProfiler.Sort.time.get(profile), 2)).right();
+                        c.add(String.valueOf((int)LProfiler.Sort.instructions.get(profile))).right();
+                        c.add(Strings.fixed(LProfiler.Sort.queries.get(profile), 1)).right();
+                        c.row();
+                    }
+                };
+
+                rebuild[0].run();
+                c.update(() -> {
+                    if(timer.get(60f)){
+                        rebuild[0].run();
+                    }
+                });
+            }).margin(6f);
+        });
+
         //TODO DEBUG: rate table
         if(false)
             parent.fill(t -> {
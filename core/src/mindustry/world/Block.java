@@ -150,6 +150,9 @@ public class Block extends UnlockableContent implements Senseable{
     public boolean autoResetEnabled = true;
     /** if true, the block stops updating when disabled */
     public boolean noUpdateDisabled = false;
+    /** if true, updateTile() only modifies this building and adjacent buildings, and does not touch global state (effects, events, groups, etc).
+     * Such blocks may be updated on multiple threads when parallel building updates are enabled. See {@link mindustry.entities.BuildingUpdater}. */
+    public boolean threadSafe = false;
     /** if true, this block updates when it's a payload in a unit. */
     public boolean updateInUnits = true;
     /** if true, this block updates in payloads in units regardless of the experimental game rule */
@@ -3,6 +3,7 @@ package mindustry.world;
 import arc.func.*;
 import arc.math.*;
 import arc.math.geom.*;
+import arc.struct.*;
 import arc.util.*;
 import mindustry.gen.*;
 
@@ -10,34 +11,77 @@ import java.util.*;
 
 /** A tile container. */
 public class Tiles implements Iterable<Tile>{
+    /** Worlds with more tiles than this use compact storage by default. */
+    public static int compactSize = 512 * 512;
+
     public final int width, height;
+    /**
+     * Whether puddles and fires are kept in sparse maps instead of arrays covering the whole world.
+     * There are rarely more than a few hundred of them, so this saves two references per tile on large worlds, at the cost of slower lookups.
+     */
+    public final boolean compact;
 
     final Tile[] array;
-    final Puddle[] puddles;
-    final Fire[] fires;
+    final @Nullable Puddle[] puddles;
+    final @Nullable Fire[] fires;
+    final @Nullable IntMap<Puddle> puddleMap;
+    final @Nullable IntMap<Fire> fireMap;
 
     public Tiles(int width, int height){
+        this(width, height, width * height > compactSize);
+    }
+
+    public Tiles(int width, int height, boolean compact){
         this.array = new Tile[width * height];
         this.width = width;
         this.height = height;
-        this.puddles = new Puddle[width * height];
-        this.fires = new Fire[width * height];
+        this.compact = compact;
+        this.puddles = compact ? null : new Puddle[width * height];
+        this.fires = compact ? null : new Fire[width * height];
+        this.puddleMap = compact ? new IntMap<>() : null;
+        this.fireMap = compact ? new IntMap<>() : null;
     }
 
     public Puddle getPuddle(int pos){
-        return puddles[pos];
+        return compact ? puddleMap.get(pos) : puddles[pos];
     }
 
     public void setPuddle(int pos, Puddle p){
-        puddles[pos] = p;
+        if(!compact){
+            puddles[pos] = p;
+        }else if(p == null){
+            puddleMap.remove(pos);
+        }else{
+            puddleMap.put(pos, p);
+        }
     }
 
     public @Nullable Fire getFire(int pos){
-        return fires[pos];
+        return compact ? fireMap.get(pos) : fires[pos];
     }
 
     public void setFire(int pos, Fire f){
-        fires[pos] = f;
+        if(!compact){
+            fires[pos] = f;
+        }else if(f == null){
+            fireMap.remove(pos);
+        }else{
+            fireMap.put(pos, f);
+        }
+    }
+
+    /**
+     * Copies the floor, overlay and block IDs of all tiles into arrays, in iteration order.
+     * Whole-map passes that only need IDs (e.g. run-length encoding the map for saving) can then scan primitive arrays instead of tiles.
+     * Arrays must have at least width * height elements.
+     */
+    public void getIds(short[] floors, short[] overlays, short[] blocks){
+        for(int i = 0; i < array.length; i++){
+            Tile tile = array[i];
+            floors[i] = tile.floorID();
+            overlays[i] = tile.overlayID();
+            blocks[i] = tile.blockID();
+        }
     }
 
 
@@ -59,7 +59,7 @@ public class AutoDoor extends Wall{
         public void updateTile(){
             if(timer(timerToggle, checkInterval) && !net.client()){
                 units.clear();
-                team.data().tree().intersect(rect.setSize(size * tilesize + triggerMargin * 2f).setCenter(x, y), units);
+                Units.nearby(team, rect.setSize(size * tilesize + triggerMargin * 2f).setCenter(x, y), units::add);
                 boolean shouldOpen = units.contains(groundCheck);
 
                 if(open != shouldOpen){
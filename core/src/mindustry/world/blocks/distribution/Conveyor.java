@@ -48,6 +48,7 @@ public class Conveyor extends Block implements Autotiler{
         ambientSoundVolume = 0.0022f;
         unloadable = false;
         noUpdateDisabled = false;
+        threadSafe = true;
     }
 
     @Override
@@ -137,6 +138,11 @@ public class Conveyor extends Block implements Autotiler{
 
         public float clogHeat = 0f;
 
+        //whether an item is being passed to this conveyor by a conveyor in the same line
+        boolean receiving;
+        //whether this conveyor is being updated by the head of its line, and whether it moved anything in that update
+        boolean lineUpdate, lineActive;
+
         @Override
         public void draw(){
             int frame = enabled && clogHeat <= 0.5f ? (int)(((Time.time * speed * 8f * timeScale * efficiency)) % 4) : 0;
@@ -218,6 +224,9 @@ public class Conveyor extends Block implements Autotiler{
             next = front();
             nextc = next instanceof ConveyorBuild && next.team == team ? (ConveyorBuild)next : null;
             aligned = nextc != null && rotation == next.rotation;
+
+            //wake up the line this conveyor belongs to now
+            noSleep();
         }
 
         @Override
@@ -249,16 +258,95 @@ public class Conveyor extends Block implements Autotiler{
 
         @Override
         public void updateTile(){
+            if(lineUpdate){
+                lineActive = moveItems();
+                return;
+            }
+
+            //linked conveyors are moved by the head of their line, which may still be asleep if this conveyor was just linked
+            if(linked()){
+                wakeHead();
+                sleep();
+                return;
+            }
+
+            //move the items of the whole line, starting from the front, so items can follow each other in the same frame
+            boolean active = moveItems();
+            for(ConveyorBuild c = previous(); c != null; c = c.previous()){
+                if(c.isSleeping()){
+                    //sleeping members get their whole update here, so boosts, disabling and efficiency apply to them as usual
+                    c.lineUpdate = true;
+                    c.lineActive = false;
+                    c.updateBuild();
+                    c.lineUpdate = false;
+                    active |= c.lineActive;
+                }else{
+                    //members that are still awake already update everything else themselves
+                    active |= c.moveItems();
+                }
+            }
+
+            if(active){
+                noSleep();
+            }else{
+                sleep();
+            }
+        }
+
+        /**
+         * @return whether this conveyor is linked to the conveyor in front of it. Linked conveyors do not update on their own;
+         * straight runs of them are updated by the first conveyor of the run that is not linked, the head of their line.
+         * This only depends on the placement of conveyors, which always wakes them up when it changes, so a sleeping conveyor can never be left out of a line.
+         * Lines never cross the boundary of a {@link BuildingUpdater} region, which keeps them short enough to be updated in parallel.
+         */
+        public boolean linked(){
+            return aligned && nextc.block == block && nextc.isValid() && !block.hasConsumers &&
+                tile.x / BuildingUpdater.regionSize == nextc.tile.x / BuildingUpdater.regionSize &&
+                tile.y / BuildingUpdater.regionSize == nextc.tile.y / BuildingUpdater.regionSize;
+        }
+
+        /** @return the conveyor behind this one that is linked to it, if there is one. */
+        public @Nullable ConveyorBuild previous(){
+            return back() instanceof ConveyorBuild b && b.nextc == this && b.linked() ? b : null;
+        }
+
+        /** Wakes up the head of the line this conveyor is linked to. */
+        public void wakeHead(){
+            ConveyorBuild head = nextc;
+            while(head.linked()){
+                head = head.nextc;
+            }
+            head.noSleep();
+        }
+
+        @Override
+        public void noSleep(){
+            if(linked()){
+                //items passed along a line are moved by a head that is already awake
+                if(!receiving) wakeHead();
+            }else{
+                super.noSleep();
+            }
+        }
+
+        /**
+         * Moves the items of this conveyor forward, passing items at the end to the next building.
+         * @return whether this conveyor needs to keep updating.
+         */
+        public boolean moveItems(){
             minitem = 1f;
             mid = 0;
 
             //skip updates if possible
             if(len == 0 && Mathf.equal(timeScale, 1f)){
                 clogHeat = 0f;
-                sleep();
-                return;
+                return false;
             }
 
+            //the next conveyor is in the same line, so it is being updated already
+            boolean linked = linked();
+            if(linked) nextc.receiving = true;
+
             float nextMax = aligned ? 1f - Math.max(itemSpace - nextc.minitem, 0) : 1f;
             float moved = speed * edelta();
 
@@ -291,7 +379,9 @@ public class Conveyor extends Block implements Autotiler{
                 clogHeat = 0f;
             }
 
-            noSleep();
+            if(linked) nextc.receiving = false;
+
+            return true;
         }
 
         public boolean pass(Item item){
@@ -47,6 +47,7 @@ public class Duct extends Block implements Autotiler{
         rotate = true;
         noSideBlend = true;
         isDuct = true;
+        threadSafe = true;
         priority = TargetPriority.transport;
         envEnabled = Env.space | Env.terrestrial | Env.underwater;
     }
@@ -180,6 +181,11 @@ public class Duct extends Block implements Autotiler{
             if(current == null && items.total() > 0){
                 current = items.first();
             }
+
+            //empty ducts have nothing to do until an item is received
+            if(current == null){
+                sleep();
+            }
         }
 
         @Override
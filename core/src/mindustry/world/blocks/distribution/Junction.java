@@ -39,6 +39,7 @@ public class Junction extends Block{
 
         @Override
         public void updateTile(){
+            boolean empty = true;
 
             for(int i = 0; i < 4; i++){
                 if(buffer.indexes[i] > 0){
@@ -61,11 +62,19 @@ public class Junction extends Block{
                         buffer.indexes[i] --;
                     }
                 }
+
+                if(buffer.indexes[i] > 0) empty = false;
+            }
+
+            //nothing to pass on until an item is received
+            if(empty){
+                sleep();
             }
         }
 
         @Override
         public void handleItem(Building source, Item item){
+            noSleep();
             int relative = source.relativeTo(tile);
             buffer.accept(relative, item);
         }
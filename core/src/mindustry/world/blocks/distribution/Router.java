@@ -35,6 +35,8 @@ public class Router extends Block{
             if(unit == null){
                 unit = (BlockUnitc)UnitTypes.block.create(team);
                 unit.tile(this);
+                //controlled routers update their unit, so they never sleep
+                noSleep();
             }
             return (Unit)unit;
         }
@@ -66,6 +68,11 @@ public class Router extends Block{
                     lastItem = null;
                 }
             }
+
+            //nothing to route until an item is received
+            if(lastItem == null && unit == null && items.total() == 0){
+                sleep();
+            }
         }
 
         @Override
@@ -80,6 +87,7 @@ public class Router extends Block{
 
         @Override
         public void handleItem(Building source, Item item){
+            noSleep();
             items.add(item, 1);
             lastItem = item;
             time = 0f;
@@ -3,9 +3,20 @@ package mindustry.world.blocks.power;
 import arc.math.*;
 import arc.struct.*;
 import arc.util.*;
+import mindustry.async.*;
 import mindustry.gen.*;
+import mindustry.net.Administration.*;
+import mindustry.world.consumers.*;
+
+import static mindustry.Vars.*;
 
 public class PowerGraph{
+    /** Minimum amount of graphs for updating them on multiple threads. */
+    private static final int minParallelGraphs = 16;
+
+    private static final Seq<PowerGraph> updating = new Seq<>(false, 64, PowerGraph.class);
+    private static long lastUpdateAll = -1;
+
     private static final Queue<Building> queue = new Queue<>();
     private static final Seq<Building> outArray1 = new Seq<>();
     private static final Seq<Building> outArray2 = new Seq<>();
@@ -23,6 +34,8 @@ public class PowerGraph{
     private float lastScaledPowerIn, lastScaledPowerOut, lastCapacity;
     //diodes workaround for correct energy production info
     private float energyDelta = 0f;
+    //battery totals of the current update, summed in a single pass
+    private float batteryStored, batteryMissing, batteryTotal;
 
     private final int graphID;
     private static int lastGraphID;
@@ -152,7 +165,10 @@ public class PowerGraph{
     }
 
     public float useBatteries(float needed){
-        float stored = getBatteryStored();
+        return useBatteries(needed, getBatteryStored());
+    }
+
+    private float useBatteries(float needed, float stored){
         if(Mathf.equal(stored, 0f)) return 0f;
 
         float used = Math.min(stored, needed);
@@ -168,7 +184,10 @@ public class PowerGraph{
     }
 
     public float chargeBatteries(float excess){
-        float capacity = getBatteryCapacity();
+        return chargeBatteries(excess, getBatteryCapacity());
+    }
+
+    private float chargeBatteries(float excess, float capacity){
         //how much of the missing in each battery % is charged
         float chargedPercent = Math.min(excess/capacity, 1f);
         if(Mathf.equal(capacity, 0f)) return 0f;
@@ -232,8 +251,9 @@ public class PowerGraph{
 
         lastScaledPowerIn = (powerProduced + energyDelta) / Time.delta;
         lastScaledPowerOut = powerNeeded / Time.delta;
-        lastCapacity = getTotalBatteryCapacity();
-        lastPowerStored = getBatteryStored();
+        sumBatteries();
+        lastCapacity = batteryTotal;
+        lastPowerStored = batteryStored;
 
         powerBalance.add((lastPowerProduced - lastPowerNeeded + energyDelta) / Time.delta);
         energyDelta = 0f;
@@ -243,12 +263,12 @@ public class PowerGraph{
 
             if(!Mathf.equal(powerNeeded, powerProduced)){
                 if(powerNeeded > powerProduced){
-                    float powerBatteryUsed = useBatteries(powerNeeded - powerProduced);
+                    float powerBatteryUsed = useBatteries(powerNeeded - powerProduced, batteryStored);
                     powerProduced += powerBatteryUsed;
                     lastPowerProduced += powerBatteryUsed;
                 }else if(powerProduced > powerNeeded){
                     charged = true;
-                    powerProduced -= chargeBatteries(powerProduced - powerNeeded);
+                    powerProduced -= chargeBatteries(powerProduced - powerNeeded, batteryMissing);
                 }
             }
 
@@ -256,6 +276,71 @@ public class PowerGraph{
         }
     }
 
+    /**
+     * Computes the values of {@link #getBatteryStored()}, {@link #getBatteryCapacity()} and {@link #getTotalBatteryCapacity()} in a single pass.
+     * Sums are taken in the same order, so results are exactly the same.
+     */
+    private void sumBatteries(){
+        float stored = 0f, missing = 0f, total = 0f;
+        var items = batteries.items;
+        for(int i = 0; i < batteries.size; i++){
+            var battery = items[i];
+            if(battery.enabled){
+                float capacity = battery.block.consPower.capacity, status = battery.power.status;
+                stored += status * capacity;
+                missing += (1f - status) * capacity;
+                total += capacity;
+            }
+        }
+        batteryStored = stored;
+        batteryMissing = missing;
+        batteryTotal = total;
+    }
+
+    /** @return whether graphs are updated together on multiple threads, see {@link #updateAll()}. */
+    public static boolean parallelUpdates(){
+        return headless && OS.cores > 1 && Config.parallelPower.bool() && Groups.powerGraph.size() >= minParallelGraphs;
+    }
+
+    /**
+     * Updates every graph, once per frame; later calls in the same frame do nothing. Graphs created later in the frame are updated in the next one.
+     * Graphs that only run code of built-in blocks and plain {@link ConsumePower} consumers are updated on multiple threads, as such an update only
+     * modifies the buildings of its own graph. All other graphs may run arbitrary code (e.g. {@link ConsumePowerDynamic} or blocks of mods), so they are updated on the calling thread.
+     */
+    public static void updateAll(){
+        if(lastUpdateAll == state.updateId) return;
+        lastUpdateAll = state.updateId;
+
+        updating.clear();
+        Groups.powerGraph.each(u -> {
+            var graph = u.graph();
+            if(graph.parallelSafe()){
+                updating.add(graph);
+            }else{
+                graph.update();
+            }
+        });
+
+        var graphs = updating.items;
+        try{
+            Parallel.forEach(updating.size, i -> graphs[i].update());
+        }finally{
+            updating.clear();
+        }
+    }
+
+    /** @return whether this graph can be updated at the same time as other graphs; see {@link #updateAll()}. */
+    boolean parallelSafe(){
+        var items = all.items;
+        for(int i = 0; i < all.size; i++){
+            var block = items[i].block;
+            if(!block.isVanilla() || (block.consPower != null && block.consPower.getClass() != ConsumePower.class)){
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void addGraph(PowerGraph graph){
         if(graph == this) return;
 
@@ -320,13 +405,13 @@ public class PowerGraph{
         while(queue.size > 0){
             Building child = queue.removeFirst();
             add(child);
-            checkAdd();
             for(Building next : child.getPowerConnections(outArray2)){
                 if(closedSet.add(next.pos())){
                     queue.addLast(next);
                 }
             }
         }
+        checkAdd();
     }
 
     /** Used for unit tests only. */
@@ -222,7 +222,7 @@ public class IOSLauncher extends IOSApplication.Delegate{
 
                 try{
                     if(SaveIO.isSaveValid(file)){
-                        SaveMeta meta = SaveIO.getMeta(new DataInputStream(new InflaterInputStream(file.read(Streams.defaultBufferSize))));
+                        SaveMeta meta = SaveIO.getMeta(file);
                         if(meta.tags.containsKey("name")){
                             //is map
                             if(!ui.editor.isShown()){
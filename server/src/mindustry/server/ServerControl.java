@@ -10,12 +10,15 @@ import arc.util.CommandHandler.*;
 import arc.util.Timer.*;
 import arc.util.serialization.*;
 import arc.util.serialization.JsonValue.*;
+import mindustry.async.*;
 import mindustry.core.GameState.*;
 import mindustry.core.*;
+import mindustry.entities.*;
 import mindustry.game.EventType.*;
 import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.io.*;
+import mindustry.logic.*;
 import mindustry.maps.Map;
 import mindustry.maps.*;
 import mindustry.maps.Maps.*;
@@ -116,6 +119,7 @@ public class ServerControl implements ApplicationListener{
 
         //update log level
         Config.debug.set(Config.debug.bool());
+        Config.spatialGrid.set(Config.spatialGrid.bool());
 
         try{
             lastMode = Gamemode.valueOf(Core.settings.getString("lastServerMode", "survival"));
@@ -219,6 +223,11 @@ public class ServerControl implements ApplicationListener{
         Events.run(Trigger.update, () -> {
             if(state.isPlaying() && Config.autosave.bool()){
                 if(autosaveCount.get(Config.autosaveSpacing.num() * 60)){
+                    if(SaveIO.isSavingAsync()){
+                        warn("Previous autosave is still being written; skipping.");
+                        return;
+                    }
+
                     int max = Config.autosaveAmount.num();
 
                     //use map file name to make sure it can be saved
@@ -239,11 +248,21 @@ public class ServerControl implements ApplicationListener{
                     Fi file = saveDirectory.child(fileName);
                     info("Autosaving...");
 
-                    try{
-                        SaveIO.save(file);
-                        info("Autosave completed.");
-                    }catch(Throwable e){
-                        err("Autosave failed.", e);
+                    if(Config.asyncAutosave.bool()){
+                        SaveIO.saveAsync(file, null, Config.indexedSaves.bool(), e -> {
+                            if(e == null){
+                                info("Autosave completed.");
+                            }else{
+                                err("Autosave failed.", e);
+                            }
+                        });
+                    }else{
+                        try{
+                            SaveIO.save(file, Config.indexedSaves.bool());
+                            info("Autosave completed.");
+                        }catch(Throwable e){
+                            err("Autosave failed.", e);
+                        }
                     }
                 }
             }
@@ -466,7 +485,43 @@ public class ServerControl implements ApplicationListener{
                 }
                 info("  @ units / @ enemies", Groups.unit.size(), state.enemies);
 
+                int sleeping = 0;
+                for(var data : state.teams.present){
+                    for(var build : data.buildings){
+                        if(build.isSleeping()) sleeping ++;
+                    }
+                }
+                info("  @ buildings updating, @ sleeping", Groups.build.size(), sleeping);
+
                 info("  @ FPS, @ MB used.", Core.graphics.getFramesPerSecond(), Core.app.getJavaHeap() / 1024 / 1024);
+                info("  Pathfinding: @ field repairs (last: @ tiles invalidated, @ re-expanded), @ full updates", pathfinder.repairs, pathfinder.lastRepairInvalidated, pathfinder.lastRepairExpanded, pathfinder.fullUpdates);
+
+                if(Config.deltaSnapshots.bool()){
+                    long written = 0, uncompressed = 0;
+                    for(Player p : Groups.player){
+                        if(p.con != null && p.con.snapshotDeltas != null){
+                            written += p.con.snapshotDeltas.written;
+                            uncompressed += p.con.snapshotDeltas.uncompressed;
+                        }
+                    }
+                    info("  Delta snapshots: @ KB of entity data sent, @% of full size", written / 1024, uncompressed == 0 ? 100 : written * 100 / uncompressed);
+                }
+
+                if(state.rules.fog){
+                    info("  Fog latency: @ ms dynamic, @ ms static", fogControl.lastDynamicLatency, fogControl.lastStaticLatency);
+                }
+
+                var cache = netServer.worldCache;
+                if(cache.hits + cache.misses > 0){
+                    info("  World data cache: @ hits, @ misses (last: @ ms to write, @ ms to compress)", cache.hits, cache.misses, cache.lastWriteTime, cache.lastCompressTime);
+                }
+
+                if(EntityPools.all.any()){
+                    info("  Pools:");
+                    for(var pool : EntityPools.all){
+                        info("    @: @% reused, @ allocated, @ free (peak @)", pool.type.getSimpleName(), pool.reusePercent(), pool.allocated, pool.getFree(), pool.peak);
+                    }
+                }
 
                 if(Groups.player.size() > 0){
                     info("  Players: @", Groups.player.size());
@@ -479,6 +534,96 @@ public class ServerControl implements ApplicationListener{
             }
         });
 
+        handler.register("buildings", "[amount]", "Display the amount of updating and sleeping buildings of each block.", arg -> {
+            if(state.isMenu()){
+                err("Not playing.");
+                return;
+            }
+
+            if(arg.length > 0 && !Strings.canParsePositiveInt(arg[0])){
+                err("Invalid amount.");
+                return;
+            }
+
+            int amount = arg.length > 0 ? Strings.parseInt(arg[0]) : 15;
+            ObjectIntMap<String> active = new ObjectIntMap<>(), sleeping = new ObjectIntMap<>();
+            int totalActive = 0, totalSleeping = 0;
+
+            for(var data : state.teams.present){
+                for(var build : data.buildings){
+                    //blocks that do not update are never added to groups, so they are neither
+                    if(!build.block.update) continue;
+
+                    if(build.isSleeping()){
+                        sleeping.increment(build.block.name);
+                        totalSleeping ++;
+                    }else{
+                        active.increment(build.block.name);
+                        totalActive ++;
+                    }
+                }
+            }
+
+            Seq<String> blocks = new Seq<>();
+            for(var entry : active) blocks.add(entry.key);
+            for(var entry : sleeping) if(!active.containsKey(entry.key)) blocks.add(entry.key);
+            blocks.sort(Structs.comparingInt(name -> -(active.get(name) + sleeping.get(name))));
+
+            info("Buildings: @ updating, @ sleeping", totalActive, totalSleeping);
+            for(int i = 0; i < Math.min(amount, blocks.size); i++){
+                String name = blocks.get(i);
+                info("  &fi@&fr: @ updating, @ sleeping", name, active.get(name), sleeping.get(name));
+            }
+        });
+
+        handler.register("async", "Display async process stages and their timings.", arg -> {
+            info("Async: @ threads, @ms last frame", asyncCore.threads, Strings.fixed(asyncCore.totalTime / 1000000f, 2));
+            for(int i = 0; i < asyncCore.stages.size; i++){
+                var stage = asyncCore.stages.get(i);
+                info("  Stage @: &fi@&fr - @ms", i, stage.processes.toString(", ", AsyncProcess::name), Strings.fixed(stage.time / 1000000f, 2));
+            }
+        });
+
+        handler.register("logicprof", "[on/off/reset/time/instructions/queries] [amount]", "Toggle the processor profiler, or display the most expensive processors.", arg -> {
+            if(arg.length > 0 && (arg[0].equals("on") || arg[0].equals("off"))){
+                LProfiler.enabled = arg[0].equals("on");
+                info("Logic profiler @.", LProfiler.enabled ? "enabled" : "disabled");
+                return;
+            }
+
+            if(arg.length > 0 && arg[0].equals("reset")){
+                LProfiler.reset();
+                info("Logic profiling data cleared.");
+                return;
+            }
+
+            LProfiler.Sort sort = arg.length > 0 ? Structs.find(LProfiler.Sort.all, s -> s.name().equals(arg[0])) : LProfiler.Sort.time;
+            if(sort == null){
+                err("Invalid sort type. Use one of: @", Arrays.toString(LProfiler.Sort.all));
+                return;
+            }
+
+            if(state.isMenu()){
+                err("Not hosting. Host a game first.");
+                return;
+            }
+
+            int amount = arg.length > 1 ? Strings.parseInt(arg[1], 10) : 10;
+            var list = LProfiler.sorted(sort);
+
+            info("Logic profiler: @, @ processors profiled. Sorted by @:", LProfiler.enabled ? "enabled" : "disabled", list.size, sort);
+            for(int i = 0; i < Math.min(amount, list.size); i++){
+                var build = list.get(i);
+                var profile = build.executor.profile;
+                int slowest = profile.slowestType();
+
+                info("  @ at @,@: @ instructions/s, @ms/s, @ queries/s@",
+                    build.block.name, build.tileX(), build.tileY(),
+                    (int)LProfiler.Sort.instructions.get(profile), Strings.fixed(LProfiler.Sort.time.get(profile), 3), Strings.fixed(LProfiler.Sort.queries.get(profile), 1),
+                    slowest == -1 ? "" : " &lk(slowest: " + LProfiler.typeName(slowest) + ", " + Strings.fixed(profile.typeTime[slowest] / 1000000f / profile.seconds(), 3) + "ms/s)");
+            }
+        });
+
         handler.register("mods", "Display all loaded mods.", arg -> {
             if(!mods.list().isEmpty()){
                 info("Mods:");
@@ -985,7 +1130,7 @@ public class ServerControl implements ApplicationListener{
             Fi file = saveDirectory.child(arg[0] + "." + saveExtension);
 
             Core.app.post(() -> {
-                SaveIO.save(file);
+                SaveIO.save(file, Config.indexedSaves.bool());
                 info("Saved to @.", file);
             });
         });
@@ -8,6 +8,8 @@ import arc.util.io.*;
 import arc.util.serialization.*;
 import arc.util.serialization.JsonValue.*;
 import mindustry.*;
+import mindustry.ai.*;
+import mindustry.ai.Pathfinder.*;
 import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.core.GameState.*;
@@ -375,6 +377,154 @@ public class ApplicationTests{
         assertTrue(state.teams.playerCores().size > 0);
     }
 
+    @Test
+    void saveLoadIndexed(){
+        world.loadMap(testMap);
+        Map map = state.map;
+        state.wave = 7;
+
+        float hp = 30f;
+
+        Unit unit = UnitTypes.dagger.spawn(Team.sharded, 20f, 30f);
+        unit.health = hp;
+
+        Fi regular = saveDirectory.child("0.msav"), indexed = saveDirectory.child("1.msav");
+        SaveIO.save(regular);
+        SaveIO.save(indexed, true);
+        assertFalse(SaveIndex.isIndexed(regular), "Saves must not be indexed unless requested.");
+        assertTrue(SaveIndex.isIndexed(indexed));
+
+        SaveMeta meta = SaveIO.getMeta(SaveIO.getStream(indexed, "meta"));
+        assertEquals(SaveIO.getVersion(true).version, meta.version);
+        assertEquals(7, meta.wave);
+
+        resetWorld();
+        SaveIO.load(indexed);
+
+        Unit spawned = Groups.unit.find(u -> u.type == UnitTypes.dagger);
+        assertNotNull(spawned, "Saved daggers must persist");
+        assertEquals(hp, spawned.health, "Spawned dagger health must save.");
+
+        assertEquals(7, state.wave);
+        assertEquals(world.width(), map.width);
+        assertEquals(world.height(), map.height);
+        assertTrue(state.teams.playerCores().size > 0);
+    }
+
+    @Test
+    void cachedWorldData() throws IOException{
+        world.loadMap(testMap);
+        state.set(State.playing);
+
+        WorldDataCache cache = new WorldDataCache();
+
+        //the player section is compressed separately for each player, so check more than one
+        for(String name : new String[]{"first", "second"}){
+            Player player = Player.create();
+            player.name = name;
+            player.team(Team.sharded);
+            player.add();
+
+            ByteArrayOutputStream uncached = new ByteArrayOutputStream();
+            NetworkIO.writeWorld(player, uncached);
+
+            java.util.zip.Inflater inflater = new java.util.zip.Inflater();
+            byte[] inflated = Streams.copyBytes(new java.util.zip.InflaterInputStream(new ByteArrayInputStream(cache.writeNow(player)), inflater));
+
+            assertTrue(inflater.finished(), "Cached world data must be a complete zlib stream.");
+            assertArrayEquals(uncached.toByteArray(), inflated, "Cached world data must inflate to the same bytes as uncached world data.");
+        }
+    }
+
+    @Test
+    void flowFieldRepair() throws InterruptedException{
+        world.loadMap(testMap);
+        state.set(State.playing);
+
+        Flowfield field = pathfinder.getField(state.rules.waveTeam, Pathfinder.costGround, Pathfinder.fieldCore);
+        long start = Time.millis();
+        while(!field.hasCompleteWeights() && Time.timeSinceMillis(start) < 10000){
+            Thread.sleep(10);
+        }
+        assertTrue(field.hasCompleteWeights(), "Flow field was never completed.");
+
+        //targets are the only tiles with a weight of 0
+        IntSeq targets = new IntSeq();
+        for(int i = 0; i < field.completeWeights.length; i++){
+            if(field.completeWeights[i] == 0) targets.add(i);
+        }
+        assertTrue(targets.size > 0, "Flow field has no targets.");
+
+        int[] initial = awaitFlowField(field, targets);
+
+        //place a wall on an open tile that enemies path through
+        Tile wall = null;
+        for(Tile tile : world.tiles){
+            if(tile.block() == Blocks.air && initial[tile.array()] > 0 && initial[tile.array()] < 100 &&
+            tile.nearby(0) != null && tile.nearby(1) != null && tile.nearby(2) != null && tile.nearby(3) != null){
+                wall = tile;
+                break;
+            }
+        }
+        assertNotNull(wall, "No open tile found on the enemy path.");
+
+        int repairs = pathfinder.repairs;
+
+        wall.setBlock(Blocks.copperWall, Team.sharded);
+        int[] walled = awaitFlowField(field, targets);
+        assertFalse(java.util.Arrays.equals(initial, walled), "Placing a wall must change the flow field.");
+
+        wall.setAir();
+        int[] removed = awaitFlowField(field, targets);
+        assertArrayEquals(initial, removed, "Removing the wall must restore the flow field.");
+
+        assertTrue(pathfinder.repairs > repairs, "Tile changes must repair the flow field.");
+    }
+
+    /** Waits for the complete weights of a flow field to match a full rebuild from its targets with the current tile costs. */
+    int[] awaitFlowField(Flowfield field, IntSeq targets) throws InterruptedException{
+        int[] expected = rebuildWeights(targets);
+        long start = Time.millis();
+        while(!java.util.Arrays.equals(field.completeWeights, expected) && Time.timeSinceMillis(start) < 10000){
+            Thread.sleep(10);
+        }
+
+        assertArrayEquals(expected, field.completeWeights, "Repaired flow field must match a full rebuild.");
+        return expected;
+    }
+
+    int[] rebuildWeights(IntSeq targets){
+        //-1 marks impassable tiles, same as the pathfinder
+        int[] weights = new int[world.width() * world.height()];
+        java.util.Arrays.fill(weights, -1);
+        IntQueue queue = new IntQueue();
+
+        for(int i = 0; i < targets.size; i++){
+            weights[targets.items[i]] = 0;
+            queue.addLast(targets.items[i]);
+        }
+
+        while(queue.size > 0){
+            int pos = queue.removeFirst();
+            int x = pos % world.width(), y = pos / world.width();
+
+            for(Point2 point : Geometry.d4){
+                int dx = x + point.x, dy = y + point.y;
+                if(!world.tiles.in(dx, dy)) continue;
+
+                int other = dx + dy * world.width();
+                int cost = Pathfinder.costTypes.get(Pathfinder.costGround).getCost(state.rules.waveTeam.id, pathfinder.get(dx, dy));
+
+                if(cost != -1 && (weights[other] == -1 || weights[other] > weights[pos] + cost)){
+                    weights[other] = weights[pos] + cost;
+                    queue.addLast(other);
+                }
+            }
+        }
+
+        return weights;
+    }
+
     void updateBlocks(int times){
         for(Tile tile : world.tiles){
             if(tile.build != null && tile.isCenter()){
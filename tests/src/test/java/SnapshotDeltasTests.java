@@ -0,0 +1,197 @@
+import mindustry.net.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Tests delta compression of entity snapshots, without a game or network. */
+public class SnapshotDeltasTests{
+    SnapshotDeltas.Sender sender;
+    SnapshotDeltas.Receiver receiver;
+    /** Bytes written for the last entity sent. */
+    long lastSize;
+
+    @BeforeEach
+    void setup(){
+        sender = new SnapshotDeltas.Sender();
+        receiver = new SnapshotDeltas.Receiver();
+    }
+
+    @Test
+    void encodingsRoundTrip() throws IOException{
+        byte[] data = bytes(20, 0);
+
+        assertArrayEquals(data, send(1, data, true));
+        assertEquals(3 + data.length, lastSize, "Entities without a baseline must be written in full.");
+        acknowledge();
+
+        assertArrayEquals(data, send(1, data.clone(), true));
+        assertEquals(5, lastSize, "Unchanged entities must only reference their baseline.");
+        acknowledge();
+
+        byte[] changed = data.clone();
+        changed[3] = 100;
+        changed[17] = -5;
+        assertArrayEquals(changed, send(1, changed, true));
+        assertEquals(7 + (data.length + 7) / 8 + 2, lastSize, "Changed entities must only contain the changed bytes.");
+        acknowledge();
+
+        byte[] longer = bytes(24, 1);
+        assertArrayEquals(longer, send(1, longer, true));
+        assertEquals(3 + longer.length, lastSize, "Entities with a different size must be written in full.");
+    }
+
+    @Test
+    void multipleEntities() throws IOException{
+        byte[][] first = {bytes(12, 0), bytes(30, 1), bytes(5, 2)};
+        assertDeepEquals(first, send(first, true));
+        acknowledge();
+
+        byte[][] second = {first[0].clone(), bytes(30, 7), bytes(5, 3)};
+        second[0][0] = 42;
+        assertDeepEquals(second, send(second, true));
+    }
+
+    @Test
+    void lostPacket() throws IOException{
+        byte[] data = bytes(16, 0);
+        send(1, data, true);
+        acknowledge();
+
+        //this packet never arrives, so it must never become a baseline
+        send(1, bytes(16, 5), false);
+        acknowledge();
+
+        byte[] next = data.clone();
+        next[0] = 99;
+        assertArrayEquals(next, send(1, next, true));
+        assertEquals(7 + (next.length + 7) / 8 + 1, lastSize, "The last acknowledged packet must still be used as a baseline.");
+    }
+
+    @Test
+    void reusedSlotAcknowledgement() throws IOException{
+        byte[] data = bytes(16, 0);
+        send(1, data, true);
+        int stale = sender.packet();
+
+        //the slot of the first packet is reused by later ones before it is acknowledged
+        for(int i = 0; i < SnapshotDeltas.window; i++){
+            send(2, bytes(8, i), true);
+        }
+        sender.ack(stale);
+
+        assertArrayEquals(data, send(1, data.clone(), true));
+        assertEquals(3 + data.length, lastSize, "Acknowledgements of reused slots must be ignored.");
+    }
+
+    @Test
+    void resendMissingBaseline() throws IOException{
+        byte[] data = bytes(16, 0);
+        send(1, data, true);
+        acknowledge();
+
+        //the client loses all of its baselines
+        receiver.reset();
+
+        assertNull(send(1, data.clone(), true), "Entities without a baseline can't be decoded.");
+        assertEquals(1, receiver.missing.size);
+        assertEquals(1, receiver.missing.first());
+        acknowledge();
+
+        assertArrayEquals(data, send(1, data.clone(), true));
+        assertEquals(3 + data.length, lastSize, "Entities with missing baselines must be resent in full.");
+        acknowledge();
+
+        assertArrayEquals(data, send(1, data.clone(), true));
+        assertEquals(5, lastSize, "Entities that were resent must be usable as baselines again.");
+    }
+
+    @Test
+    void windowCutoff() throws IOException{
+        byte[] data = bytes(16, 0);
+        send(1, data, true);
+        acknowledge();
+        int base = sender.packet();
+
+        //packets without this entity
+        while(sender.packet() - base < SnapshotDeltas.window - SnapshotDeltas.windowMargin - 2){
+            send(new byte[0][], true);
+        }
+
+        assertArrayEquals(data, send(1, data.clone(), true));
+        assertEquals(5, lastSize, "Baselines inside the window must be used.");
+
+        assertArrayEquals(data, send(1, data.clone(), true));
+        assertEquals(SnapshotDeltas.window - SnapshotDeltas.windowMargin, sender.packet() - base);
+        assertEquals(3 + data.length, lastSize, "Baselines at the end of the window must not be used.");
+    }
+
+    /** Sends one entity in its own packet. @return the data received, or null if it could not be decoded. */
+    byte[] send(int id, byte[] data, boolean delivered) throws IOException{
+        int packet = sender.begin();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long written = sender.written;
+        sender.write(new DataOutputStream(bytes), id, data);
+        lastSize = sender.written - written;
+        assertEquals(lastSize, bytes.size());
+
+        if(!delivered) return null;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        receiver.begin(packet);
+        byte[] result = receiver.read(in, packet, id);
+        receiver.end(packet);
+        assertEquals(0, in.available(), "Packets must be read completely.");
+        return result;
+    }
+
+    /** Sends entities with IDs matching their index in one packet. @return the data received for each entity. */
+    byte[][] send(byte[][] data, boolean delivered) throws IOException{
+        int packet = sender.begin();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for(int i = 0; i < data.length; i++){
+            sender.write(out, i, data[i]);
+        }
+
+        if(!delivered) return null;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        receiver.begin(packet);
+        byte[][] result = new byte[data.length][];
+        for(int i = 0; i < data.length; i++){
+            result[i] = receiver.read(in, packet, i);
+        }
+        receiver.end(packet);
+        assertEquals(0, in.available(), "Packets must be read completely.");
+        return result;
+    }
+
+    /** Hands acknowledgements to the sender, in the same order as the server. */
+    void acknowledge(){
+        for(int i = 0; i < receiver.acks.size; i++){
+            sender.ack(receiver.acks.items[i]);
+        }
+        for(int i = 0; i < receiver.missing.size; i++){
+            sender.resend(receiver.missing.items[i]);
+        }
+        receiver.acks.clear();
+        receiver.missing.clear();
+    }
+
+    static byte[] bytes(int length, int seed){
+        byte[] out = new byte[length];
+        for(int i = 0; i < length; i++){
+            out[i] = (byte)(i * 31 + seed * 7);
+        }
+        return out;
+    }
+
+    static void assertDeepEquals(byte[][] expected, byte[][] actual){
+        assertEquals(expected.length, actual.length);
+        for(int i = 0; i < expected.length; i++){
+            assertArrayEquals(expected[i], actual[i]);
+        }
+    }
+}